@@ -1,14 +1,17 @@
 // Name: Rufin Hsu
 // Date: Jan 19, 2025
-// Description: AttackWave class and resources.
+// Description: AttackWave and WavePlan classes and resources.
 // The AttackWave stores information about AttackWaves and sends groups of EnemyShips when applicable.
+// A WavePlan holds the word order and flight paths of a wave, and the ship, group and
+// torpedo objects its ships need, prepared in the background while the previous wave plays.
 
 import java.util.*;
 import java.awt.*;
 import java.util.List;
 import java.awt.geom.*;
+import java.util.concurrent.*;
 
-class AttackWave {
+class AttackWave implements TimerListener {
   private String[] words;         // Words of the phrase, possibly shuffled.
   private int currWordIdx = 0;    // Current index of next word to output
   private String phrase;          // Destruction phrase for this wave.
@@ -18,52 +21,69 @@ class AttackWave {
 
   private String phraseWords[];   // Words of the phrase, in order.
   private int phraseMatchCt = 0;  // # of words in the phrase matching
+  private WavePlan plan;          // Prepared word order and flight paths.
+  private int groupCt = 0;        // Number of enemy groups added so far.
   private Game game;              // Reference to the game object.
-  private long lastShipAdded; // Time of last EnemyShip addition
-  private long startTime;     // Time of creation of this attack wave.
-  private static long wavePauseTime = 3000; // Pause time before ships are added to this wave.
-  private static long animTime = 500; // Animation time for fade-in/out of the wave number
+  private long startTime;     // Game time, in ns, of creation of this attack wave.
+  private static final long wavePauseTime = 3000 * GameClock.MS; // Pause time before ships are added to this wave.
+  private static final long animTime = 500 * GameClock.MS; // Animation time for fade-in/out of the wave number
+  static final int waveShips = 20; // Number of ships in a wave.
+  static final int maxGroupSz = 5; // Max. number of ships added at once.
   int shipsLeft; // Number of ships left in this wave.
-  private static long addTime = 5000; // Time between addition of new EnemyShips to the wave.
+  private static final long addTime = 5000 * GameClock.MS; // Time between addition of new EnemyShips to the wave.
 
   boolean canAdd = true;
 
+  // Timer kinds.
+  private static final int PAUSE_END = 0; // End of the pause before ships are added.
+  private static final int ADD = 1;       // addTime since the last EnemyShip addition.
+  private boolean paused = true;  // Whether the wave is still in its pause.
+  private boolean addDue = false; // Whether it is time to add another ship.
+  private long addTimer;          // Timer for the next ship addition.
+
   private int waveN; // Wave number.
 
   /*
    * Description: Creates a new AttackWave.
    * Parameters: g: Reference to game object.
-   *             p: Destruction phrase for the wave.
+   *             pl: Prepared plan of the wave.
    *             w: Wave number.
+   *             now: Current game time, in ns.
    * Return: (none)
    */
-  AttackWave(Game g, String p, int w) {
-    synchronized (g.hShip.getPulses()) {
-      // Remove all existing pulses.
-      for (Pulse pulse : g.hShip.getPulses()) {
-        pulse.pendingRemove = true;
-      }
-    }
+  AttackWave(Game g, WavePlan pl, int w, long now) {
+    // Remove all existing pulses.
+    PulseRing pulses = g.hShip.getPulses();
+    for (int i = 0; i < pulses.size(); i++)
+      pulses.get(i).pendingRemove = true;
     waveN = w;
-    startTime = System.currentTimeMillis();
-    shipsLeft = 20;
-    phrase = p;
-    words = p.split(" ");
-
-    // Shuffle the words.
-    for (int i=0; i<words.length; i++) {
-      int swapIdx = (int)(Math.random()*(words.length-i));
-      String tmp = words[i];
-      words[i] = words[swapIdx];
-      words[swapIdx] = tmp;
-    }
-
-    phraseWords = p.split(" ");
-    lastShipAdded = System.currentTimeMillis();
+    startTime = now;
+    shipsLeft = waveShips;
+    plan = pl;
+    phrase = pl.phrase;
+    words = pl.words;
+    phraseWords = pl.phraseWords;
     game = g;
+    // Let the pools use the objects made with the plan before making any on the tick thread.
+    game.shipPool.stock(pl.ships);
+    game.groups.stock(pl.groups);
+    game.torpPool.stock(pl.torps);
+    game.timers.schedule(now + wavePauseTime, this, PAUSE_END);
+    addTimer = game.timers.schedule(now + addTime + 1, this, ADD);
     game.stat.onNextWave();
   }
 
+  /*
+   * Description: Handles the wave's timers.
+   * Parameters: kind: PAUSE_END or ADD.
+   *             now: Current game time, in ns.
+   * Return: (none)
+   */
+  public void onTimer(int kind, long now) {
+    if (kind == PAUSE_END) paused = false;
+    else addDue = true;
+  }
+
   /*
    * Description: Submit a word to update the phrase words
    * Parameters: str: String to update.
@@ -103,88 +123,27 @@ class AttackWave {
     // Phrase has been guessed already
     if (phraseMatchCt >= phraseWords.length) return true;
     String nextWord = phraseWords[phraseMatchCt];
-    return game.tGroups.keySet().contains(nextWord);
-  }
-
-  private double[][] tracks = { // A set of predefined flight-path tracks.
-    // Latest track designs with better visibility.
-    // Data is stored in groups of 3.
-    // 1st, 2nd values are coordinates. 3rd value is action (7=fill/load, 9=normal)
-    {
-      1.6,0,7,   0.1,-.4,9,   -.15,-.6,9,  0,-1,9,      .3,-1,9,
-      .4,-.7,9,  -.5,-.5,9,   -1,-.2,9,    -0.9,.4,9,  -.7,.5,9,
-      -.6,.25,9, -.75,0,9,    -1,.25,9,   -1.2,1.2,7,   -.2,0.8,9,
-      .5,1,9,    .7,.8,9,     .4,.6,9,     0,.7,9,      0,1.2,9,
-      .6,1.4,9,  1.7,.7,9,    1.6,.1,9
-    },
-    {
-      1.6,0,7,    0.8,-.6,9,   .4,-.9,9,    -.7,-1,9,    -.6,-.7,9,
-      -.2,-.6,9,  .3,-.65,9,   .4,-.9,9,    -.2,-1.1,9,  -.75,-.65,9,
-      -.75,-.1,9, -.9,.2,9,   -1.3,.2,7,   -1.2,-.25,9,  -.8,-.4,9,
-      -.5,-.15,9, -.7,.6,9,   -.4,.8,9,     .25,.75,9,    .2,.5,9,
-      -.25,.5,9,  -.2,.8,9,    .6,.9,9,       1,.6,9
-    },
-    {
-      1.6,0,7,     .7,.65,9,    -.1,.5,9,    -.75,.6,9,   -.75,.9,9,
-      .2,.9,9,    .2,.75,9,    -.2,.4,9,    -.6,.25,9,   -.8,.7,9,
-      -.4,.75,9,   -.25,.25,9,  -.7,.2,9,    -.75,-.75,9,  -.25,-1.3,7,
-      .4,-.75,9,   .3,-.4,9,    -.25,-.7,9,  .1,-.9,9,     .9,-.8,9
-    }
-  };
-
-  private int _trackIdx=2; // Index of the next flight path to use.
-  // Every EnemyGroup uses the same flight path, just offsetted and rotated.
-
-  /*
-   * Description: Creates a new flight path.
-   * Parameters: shipIdx: Index of the ship in the EnemyShip group, for offset.
-   *             angle: Base angle rotation of the FlightPath (further rotated according to shipIdx).
-   * Return: A transformed FlightPath.
-   */
-  private FlightPath mkFlightPath(int shipIdx, double angle) {
-    if (shipIdx==0) _trackIdx++; // A new base flightpath for every group of enemyships
-    double[] trk = tracks[_trackIdx%tracks.length];
-    List<FPt> path = Collections.synchronizedList(new ArrayList<>());
-    // Loop through flight track data in groups of 3
-    for (int i=0; i<trk.length; i+=3) {
-      int ptType = FPt.NONE;
-      if (i==0 || trk[i+2]==7) // Point is for loading/filling torpedoes.
-        ptType=FPt.FILL;
-      else {
-        int prv = i-3;
-        int nxt = i+3;
-        if (nxt>=trk.length) nxt=0;
-        double vix=-trk[i], viy=-trk[i+1];
-        double v1x=trk[i]-trk[prv], v1y=trk[i+1]-trk[prv+1];
-        double v2x=trk[nxt]-trk[i], v2y=trk[nxt+1]-trk[i+1];
-        if (vix*v1x+viy*v1y>0 && vix*v2x+viy*v2y>0 &&
-            G.crossProductZ(v1x, v1y, vix, viy) * G.crossProductZ(v2x,v2y, vix,viy)<0)
-        { // Direction before and after will sweep past HomeShip position => can launch
-          ptType=FPt.LAUNCH;
-        }
-      }
-      path.add(new FPt(trk[i], trk[i+1], ptType));
-    } // for (i)
-
-    FlightPath f = new FlightPath(path);
-    return new FlightPath(f, G.normalizeAngle(angle + shipIdx*0.2), game.hShip.getPos());
+    return game.tGroups.contains(nextWord);
   }
 
   /*
    * Description: Adds the specified number of enemy ships to the attack wave.
    * Parameters: ct: Number of ships to add.
+   *             now: Current game time, in ns.
    * Return: Whether the current ship supply is exhausted. When the supply is exhausted, the attackWave is complete.
    */
-  boolean addEnemyGroup(int ct) {
+  boolean addEnemyGroup(int ct, long now) {
     if (shipsLeft<=0) return true;    // Squandron exhausted.
     if (!canAdd) return false; // Cannot add new ships, but the number of ships left is not 0.
-    lastShipAdded = System.currentTimeMillis();
-    double ang = Math.random()*2*Math.PI;
+    addDue = false;
+    game.timers.cancel(addTimer);
+    addTimer = game.timers.schedule(now + addTime + 1, this, ADD);
+    FlightPath[] paths = plan.groupPaths[groupCt++]; // A group never adds fewer than 1 ship, so there are enough.
     for (int shipidx=0; shipidx<ct && shipsLeft>0; shipidx++) {
       shipsLeft--;
       String t3xt = getWord();
 
-      new EnemyShip(t3xt, game, mkFlightPath(shipidx, ang), shipidx*1000);
+      game.shipPool.acquire().init(t3xt, game, paths[shipidx], now + shipidx*1000*GameClock.MS);
       // Staggered launch with 1000 ms delay per ship.
     }
     return shipsLeft<=0;
@@ -192,59 +151,54 @@ class AttackWave {
 
   /*
    * Description: Updates the AttackWave by adding enemy groups when necessary.
-   * Parameters: bv: Unused.
+   * Parameters: vp: Unused.
+   *             now: Current game time, in ns.
    * Return: Whether the AttackWave is complete.
    */
-  boolean update(BattleView bv) {
+  boolean update(Viewport vp, long now) {
     // Do not do anything before the wave grace period has ended.
-    if (System.currentTimeMillis() - startTime < wavePauseTime) return false;
+    if (paused) return false;
 
     // Add one ship every addTime
-    if (System.currentTimeMillis() - lastShipAdded > addTime) {
-      return addEnemyGroup(1);
+    if (addDue) {
+      return addEnemyGroup(1, now);
     }
     // Refill ships after they are deleted
     if (game.tGroups.size() == 0) {
-      return addEnemyGroup(5);
+      return addEnemyGroup(5, now);
     }
     // Add words to allow completion of the destruction phrase
     if (!canContinuePhrase()) {
-      return addEnemyGroup(1);
+      return addEnemyGroup(1, now);
     }
     // No updates performed
     return false;
   }
 
   /*
-   * Description: Calls the resize handlers for all EnemyShips.
-   * Parameters: bv: BattleView to be passed to the resize handlers
+   * Description: Copies the wave number display state into a render snapshot.
+   * Parameters: s: Snapshot to write into.
    * Return: (none)
    */
-  void onResize(BattleView bv) {
-    synchronized (game.tGroups) {
-      // Loop through all torpedo groups
-      for (List<TorpedoGroup> tgl : game.tGroups.values()) {
-        for (TorpedoGroup tg : tgl)
-          if (tg.parentShip != null)
-            tg.parentShip.onResize(bv);
-      }
-    }
+  void snapshot(RenderSnapshot s) {
+    s.waveN = waveN;
+    s.waveStart = startTime;
   }
 
-  private Font waveInfoFont = G.titleFont !=null ? G.titleFont.deriveFont(80f) : new Font("Arial", Font.BOLD, 80);
-
   /*
    * Description: Draws the wave number display if applicable
    * Parameters: bv: BattleView info
    *             g: Graphics object to draw onto.
+   *             s: Snapshot to draw from.
    * Return: (none)
    */
-  void draw(BattleView bv, Graphics2D g) {
-    long timeSinceWave = System.currentTimeMillis() - startTime;
+  static void draw(BattleView bv, Graphics2D g, RenderSnapshot s) {
+    long timeSinceWave = s.renderTime - s.waveStart;
     if (timeSinceWave < wavePauseTime + animTime) { // Need to animate the wave number
+      Font waveInfoFont = bv.bannerFont;
 
       FontMetrics fm = g.getFontMetrics(waveInfoFont);
-      String waveStr = "WaVe "+waveN;
+      String waveStr = "WaVe "+s.waveN;
       Rectangle2D bounds = fm.getStringBounds(waveStr, g);
       int opacity;
       if (timeSinceWave > animTime) // fade out
@@ -259,4 +213,136 @@ class AttackWave {
       g.drawString(waveStr, (int)(centerPos.x - bounds.getWidth()/2), 100);
     }
   }
-}
\ No newline at end of file
+}
+
+class WavePlan {
+  final String phrase;        // Destruction phrase for the wave.
+  final String[] words;       // Words of the phrase, shuffled.
+  final String[] phraseWords; // Words of the phrase, in order.
+  // Flight paths of every enemy group the wave can add: [group][ship index in group].
+  final FlightPath[][] groupPaths;
+  // Objects for the pools to use when they run dry. The wave needs a ship for every ship
+  // of the wave, its loaded group and the empty group it keeps after launch, and torpedoes
+  // for the longest word; only the part of that the pools could not already supply is
+  // made. They are only bound to a word and to the game's stores when a ship is added.
+  final EnemyShip[] ships;
+  final TorpedoGroup[] groups;
+  final TxTorpedo[] torps;
+
+  private static final double[][] tracks = { // A set of predefined flight-path tracks. Shared by every plan; never modified.
+    // Latest track designs with better visibility.
+    // Data is stored in groups of 3.
+    // 1st, 2nd values are coordinates. 3rd value is action (7=fill/load, 9=normal)
+    {
+      1.6,0,7,   0.1,-.4,9,   -.15,-.6,9,  0,-1,9,      .3,-1,9,
+      .4,-.7,9,  -.5,-.5,9,   -1,-.2,9,    -0.9,.4,9,  -.7,.5,9,
+      -.6,.25,9, -.75,0,9,    -1,.25,9,   -1.2,1.2,7,   -.2,0.8,9,
+      .5,1,9,    .7,.8,9,     .4,.6,9,     0,.7,9,      0,1.2,9,
+      .6,1.4,9,  1.7,.7,9,    1.6,.1,9
+    },
+    {
+      1.6,0,7,    0.8,-.6,9,   .4,-.9,9,    -.7,-1,9,    -.6,-.7,9,
+      -.2,-.6,9,  .3,-.65,9,   .4,-.9,9,    -.2,-1.1,9,  -.75,-.65,9,
+      -.75,-.1,9, -.9,.2,9,   -1.3,.2,7,   -1.2,-.25,9,  -.8,-.4,9,
+      -.5,-.15,9, -.7,.6,9,   -.4,.8,9,     .25,.75,9,    .2,.5,9,
+      -.25,.5,9,  -.2,.8,9,    .6,.9,9,       1,.6,9
+    },
+    {
+      1.6,0,7,     .7,.65,9,    -.1,.5,9,    -.75,.6,9,   -.75,.9,9,
+      .2,.9,9,    .2,.75,9,    -.2,.4,9,    -.6,.25,9,   -.8,.7,9,
+      -.4,.75,9,   -.25,.25,9,  -.7,.2,9,    -.75,-.75,9,  -.25,-1.3,7,
+      .4,-.75,9,   .3,-.4,9,    -.25,-.7,9,  .1,-.9,9,     .9,-.8,9
+    }
+  };
+
+  /*
+   * Description: Prepares the plan of a wave. Only touches its own random stream, so it
+   * may run on any thread.
+   * Parameters: p: Destruction phrase for the wave.
+   *             r: Random stream for the wave, split off the gameplay stream.
+   *             center: Position of the HomeShip.
+   *             shipsHave, groupsHave, torpsHave: Number of ships, groups and torpedoes
+   *               the pools could supply without making new ones.
+   * Return: (none)
+   */
+  WavePlan(String p, SplittableRandom r, Pt2 center, int shipsHave, int groupsHave, int torpsHave) {
+    SplittableRandom dice = r.split(); // Launch die rolls, used by the tick thread once the wave plays.
+    phrase = p;
+    words = p.split(" ");
+
+    // Shuffle the words.
+    for (int i=0; i<words.length; i++) {
+      int swapIdx = r.nextInt(words.length-i);
+      String tmp = words[i];
+      words[i] = words[swapIdx];
+      words[swapIdx] = tmp;
+    }
+    phraseWords = p.split(" ");
+
+    // Every group uses the next track in turn, rotated by its own random angle.
+    FlightPath[] bases = new FlightPath[tracks.length];
+    for (int t=0; t<tracks.length; t++)
+      bases[t] = mkBasePath(tracks[t], dice);
+    groupPaths = new FlightPath[AttackWave.waveShips][AttackWave.maxGroupSz];
+    for (int grp=0; grp<groupPaths.length; grp++) {
+      double ang = r.nextDouble()*2*Math.PI;
+      for (int shipIdx=0; shipIdx<AttackWave.maxGroupSz; shipIdx++)
+        groupPaths[grp][shipIdx] = new FlightPath(bases[grp%tracks.length], G.normalizeAngle(ang + shipIdx*0.2), center);
+    }
+
+    int maxLen = 0;
+    for (String w : phraseWords) maxLen = Math.max(maxLen, w.length());
+    ships = new EnemyShip[Math.max(0, AttackWave.waveShips - shipsHave)];
+    groups = new TorpedoGroup[Math.max(0, 2 * AttackWave.waveShips - groupsHave)];
+    torps = new TxTorpedo[Math.max(0, maxLen * AttackWave.waveShips - torpsHave)];
+    for (int i=0; i<ships.length; i++) ships[i] = new EnemyShip();
+    for (int i=0; i<groups.length; i++) groups[i] = new TorpedoGroup();
+    for (int i=0; i<torps.length; i++) torps[i] = new TxTorpedo();
+  }
+
+  /*
+   * Description: Starts preparing the plan of a wave on a background thread.
+   * Parameters: p: Destruction phrase for the wave.
+   *             r: Random stream for the wave, split off the gameplay stream.
+   *             center: Position of the HomeShip.
+   *             shipsHave, groupsHave, torpsHave: Number of ships, groups and torpedoes
+   *               the pools can supply without making new ones.
+   * Return: Plan, once prepared.
+   */
+  static CompletableFuture<WavePlan> prefetch(String p, SplittableRandom r, Pt2 center,
+                                              int shipsHave, int groupsHave, int torpsHave) {
+    Pt2 c = new Pt2(center);
+    return CompletableFuture.supplyAsync(() -> new WavePlan(p, r, c, shipsHave, groupsHave, torpsHave));
+  }
+
+  /*
+   * Description: Creates an unrotated flight path from track data.
+   * Parameters: trk: Flight track data.
+   *             dice: Random stream for the launch die rolls.
+   * Return: A FlightPath.
+   */
+  private static FlightPath mkBasePath(double[] trk, SplittableRandom dice) {
+    List<FPt> path = Collections.synchronizedList(new ArrayList<>());
+    // Loop through flight track data in groups of 3
+    for (int i=0; i<trk.length; i+=3) {
+      int ptType = FPt.NONE;
+      if (i==0 || trk[i+2]==7) // Point is for loading/filling torpedoes.
+        ptType=FPt.FILL;
+      else {
+        int prv = i-3;
+        int nxt = i+3;
+        if (nxt>=trk.length) nxt=0;
+        double vix=-trk[i], viy=-trk[i+1];
+        double v1x=trk[i]-trk[prv], v1y=trk[i+1]-trk[prv+1];
+        double v2x=trk[nxt]-trk[i], v2y=trk[nxt+1]-trk[i+1];
+        if (vix*v1x+viy*v1y>0 && vix*v2x+viy*v2y>0 &&
+            G.crossProductZ(v1x, v1y, vix, viy) * G.crossProductZ(v2x,v2y, vix,viy)<0)
+        { // Direction before and after will sweep past HomeShip position => can launch
+          ptType=FPt.LAUNCH;
+        }
+      }
+      path.add(new FPt(trk[i], trk[i+1], ptType));
+    } // for (i)
+    return new FlightPath(path, dice);
+  }
+}
@@ -0,0 +1,375 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: BodyStore class.
+// Packed storage for the moving bodies of a session: every EnemyShip and TxTorpedo keeps
+// its position, velocity and state in parallel primitive arrays here rather than in Pt2
+// objects of its own. The per-tick movement of all bodies runs as plain loops over
+// these arrays. Bodies are addressed by a stable id; their slots are compacted
+// in creation order. A torpedo can follow a body stored after it (a pulsed group
+// follows its closest torpedo), so the follow pass does not rely on slot order.
+
+import java.util.*;
+
+class BodyStore {
+  // Body states. Torpedo states are the TxTorpedo constants FOLLOW, RELEASED and PULSED.
+  static final int SHIP_WAITING = 3; // Enemy ship that has not started moving yet.
+  static final int SHIP_MOVING = 4;  // Enemy ship following its flight path.
+  static final int SHIP_LOCKED = 5;  // Enemy ship being destroyed by a Pulse.
+
+  // Steering decisions of the last tick, per ship. For debug only.
+  static final int STEER_NONE = 0, STEER_ACCEL = 1, STEER_DECEL = 2, STEER_TOSPEED = 3;
+
+  int n = 0; // Number of slots in use, dead or alive.
+
+  // Body data, indexed by slot.
+  double[] x = new double[64], y = new double[64];         // Position, in BSU.
+  double[] prevX = new double[64], prevY = new double[64]; // Position at the previous tick.
+  double[] vx = new double[64], vy = new double[64];       // Velocity, in BSU / sec.
+  double[] tx = new double[64], ty = new double[64];       // Steering target of a ship.
+  double[] maxSpeed = new double[64];                      // Max. speed, in BSU / sec.
+  double[] minDist = new double[64];                       // Distance a torpedo keeps from its target.
+  double[] angle = new double[64];                         // Angle of a torpedo, in radians.
+  int[] state = new int[64];
+  char[] ch = new char[64];                                // Character of a torpedo.
+  int[] target = new int[64];                              // Slot of the body a torpedo follows.
+  int[] steer = new int[64];                               // Last steering decision of a ship.
+  boolean[] hit = new boolean[64];                         // Whether a torpedo has hit the home ship.
+  TxTorpedo[] torp = new TxTorpedo[64];                    // Torpedo in each slot, or null for a ship.
+  private boolean[] dead = new boolean[64];                // Freed, to be dropped at the next compaction.
+  private int[] idOf = new int[64];                        // Id of the body in each slot.
+  private int[] remap = new int[64];                       // New slot of each slot, reused by compact().
+  private boolean[] moved = new boolean[64];               // Whether a following torpedo has moved this tick.
+  private int[] chain = new int[64];                       // Followers waiting for their target, reused by moveTorps().
+
+  // Slots of the bodies, indexed by id. -1 for unused ids.
+  private int[] slotOf = new int[64];
+  private int[] freeIds = new int[64];
+  private int freeIdCt = 0;
+  private int idCt = 0;   // Number of ids ever handed out.
+  private int deadCt = 0; // Number of dead slots.
+
+  /*
+   * Description: Removes every body.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void clear() {
+    n = 0;
+    idCt = 0;
+    freeIdCt = 0;
+    deadCt = 0;
+  }
+
+  /*
+   * Description: Returns the number of live bodies.
+   * Parameters: (none)
+   * Return: Number of bodies.
+   */
+  int size() {
+    return n - deadCt;
+  }
+
+  /*
+   * Description: Adds a body at the end of the store.
+   * Parameters: st: State of the body.
+   *             px, py: Position, in BSU.
+   * Return: Id of the new body.
+   */
+  int add(int st, double px, double py) {
+    if (n == x.length) grow();
+    int id;
+    if (freeIdCt > 0) id = freeIds[--freeIdCt];
+    else {
+      if (idCt == slotOf.length) slotOf = Arrays.copyOf(slotOf, idCt * 2);
+      id = idCt++;
+    }
+    int i = n++;
+    slotOf[id] = i;
+    idOf[i] = id;
+    x[i] = prevX[i] = px;
+    y[i] = prevY[i] = py;
+    vx[i] = vy[i] = 0;
+    tx[i] = ty[i] = 0;
+    maxSpeed[i] = 0;
+    minDist[i] = 0;
+    angle[i] = 0;
+    state[i] = st;
+    ch[i] = 0;
+    target[i] = i;
+    steer[i] = STEER_NONE;
+    hit[i] = false;
+    torp[i] = null;
+    dead[i] = false;
+    return id;
+  }
+
+  /*
+   * Description: Frees a body. Its slot is dropped at the next compaction.
+   * Parameters: id: Id of the body.
+   * Return: (none)
+   */
+  void free(int id) {
+    int i = slotOf[id];
+    if (dead[i]) return;
+    dead[i] = true;
+    deadCt++;
+  }
+
+  /*
+   * Description: Returns the slot of a body. Slots change when the store is compacted.
+   * Parameters: id: Id of the body.
+   * Return: Slot of the body.
+   */
+  int slot(int id) {
+    return slotOf[id];
+  }
+
+  /*
+   * Description: Drops the slots of freed bodies, keeping the others in order. Torpedoes
+   * that followed a freed body stay where they are.
+   * Parameters: (none)
+   * Return: Whether any slot has changed.
+   */
+  boolean compact() {
+    if (deadCt == 0) return false;
+    int j = 0;
+    for (int i = 0; i < n; i++) {
+      if (dead[i]) {
+        remap[i] = -1;
+        if (freeIdCt == freeIds.length) freeIds = Arrays.copyOf(freeIds, freeIdCt * 2);
+        freeIds[freeIdCt++] = idOf[i];
+        continue;
+      }
+      remap[i] = j;
+      if (i != j) {
+        x[j] = x[i]; y[j] = y[i];
+        prevX[j] = prevX[i]; prevY[j] = prevY[i];
+        vx[j] = vx[i]; vy[j] = vy[i];
+        tx[j] = tx[i]; ty[j] = ty[i];
+        maxSpeed[j] = maxSpeed[i];
+        minDist[j] = minDist[i];
+        angle[j] = angle[i];
+        state[j] = state[i];
+        ch[j] = ch[i];
+        target[j] = target[i];
+        steer[j] = steer[i];
+        hit[j] = hit[i];
+        torp[j] = torp[i];
+        dead[j] = false;
+        idOf[j] = idOf[i];
+        slotOf[idOf[j]] = j;
+      }
+      j++;
+    }
+    for (int i = 0; i < j; i++) {
+      int t = remap[target[i]];
+      target[i] = t < 0 ? i : t;
+    }
+    Arrays.fill(torp, j, n, null);
+    n = j;
+    deadCt = 0;
+    return true;
+  }
+
+  /*
+   * Description: Doubles the capacity of the slot arrays.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  private void grow() {
+    int cap = x.length * 2;
+    x = Arrays.copyOf(x, cap);
+    y = Arrays.copyOf(y, cap);
+    prevX = Arrays.copyOf(prevX, cap);
+    prevY = Arrays.copyOf(prevY, cap);
+    vx = Arrays.copyOf(vx, cap);
+    vy = Arrays.copyOf(vy, cap);
+    tx = Arrays.copyOf(tx, cap);
+    ty = Arrays.copyOf(ty, cap);
+    maxSpeed = Arrays.copyOf(maxSpeed, cap);
+    minDist = Arrays.copyOf(minDist, cap);
+    angle = Arrays.copyOf(angle, cap);
+    state = Arrays.copyOf(state, cap);
+    ch = Arrays.copyOf(ch, cap);
+    target = Arrays.copyOf(target, cap);
+    steer = Arrays.copyOf(steer, cap);
+    hit = Arrays.copyOf(hit, cap);
+    torp = Arrays.copyOf(torp, cap);
+    dead = Arrays.copyOf(dead, cap);
+    idOf = Arrays.copyOf(idOf, cap);
+    remap = Arrays.copyOf(remap, cap);
+    moved = Arrays.copyOf(moved, cap);
+    chain = Arrays.copyOf(chain, cap);
+  }
+
+  /*
+   * Description: Moves every enemy ship by its velocity, or away from the home ship if locked.
+   * Parameters: hx, hy: Position of the home ship.
+   *             dt: Time step, in seconds.
+   * Return: (none)
+   */
+  void moveShips(double hx, double hy, double dt) {
+    for (int i = 0; i < n; i++) {
+      int st = state[i];
+      if (st < SHIP_WAITING) continue;
+      prevX[i] = x[i];
+      prevY[i] = y[i];
+      if (st == SHIP_MOVING) {
+        x[i] += vx[i] * dt;
+        y[i] += vy[i] * dt;
+      }
+      else if (st == SHIP_LOCKED) { // Move away from the home ship at max speed.
+        double dx = x[i] - hx, dy = y[i] - hy;
+        double m = Math.sqrt(dx*dx + dy*dy);
+        if (m != 0) {
+          x[i] += dx / m * maxSpeed[i] * dt;
+          y[i] += dy / m * maxSpeed[i] * dt;
+        }
+      }
+    }
+  }
+
+  /*
+   * Description: Steers every moving enemy ship towards its target: decelerates to the
+   * preferred speed near the target, brakes early enough not to overshoot, and otherwise
+   * accelerates, all capped at max speed.
+   * Parameters: dt: Time step, in seconds.
+   * Return: (none)
+   */
+  void steerShips(double dt) {
+    double accel = EnemyShip.accel, preferred = EnemyShip.preferredSpeed;
+    double maxDeltaV = accel * dt;
+    for (int i = 0; i < n; i++) {
+      if (state[i] != SHIP_MOVING) continue;
+      double dx = tx[i] - x[i], dy = ty[i] - y[i];
+      double dist = Math.sqrt(dx*dx + dy*dy);
+      double v = Math.sqrt(vx[i]*vx[i] + vy[i]*vy[i]);
+      if (v > preferred && dist < 0.1) { // Decel to preferred speed = path movement speed and do not accelerate.
+        vx[i] -= vx[i] / v * maxDeltaV;
+        vy[i] -= vy[i] / v * maxDeltaV;
+        steer[i] = STEER_TOSPEED;
+        if (preferred - Math.sqrt(vx[i]*vx[i] + vy[i]*vy[i]) > 0.01) {
+          vx[i] = dist != 0 ? dx / dist * preferred : 0;
+          vy[i] = dist != 0 ? dy / dist * preferred : 0;
+        }
+      }
+      else if (dist > 0.1 && v * (v / accel) / 2 > dist * 0.8) {
+        // @ max deceleration would leave <20% distance left, decel now
+        vx[i] -= vx[i] / v * maxDeltaV;
+        vy[i] -= vy[i] / v * maxDeltaV;
+        steer[i] = STEER_DECEL;
+      }
+      else if (dist > 0.1) { // Accelerate to cover distance.
+        vx[i] += dx / dist * maxDeltaV;
+        vy[i] += dy / dist * maxDeltaV;
+        steer[i] = STEER_ACCEL;
+      }
+      else
+        steer[i] = STEER_NONE;
+      // Cap speed at max speed.
+      double v2 = Math.sqrt(vx[i]*vx[i] + vy[i]*vy[i]);
+      if (v2 > maxSpeed[i]) {
+        vx[i] = vx[i] / v2 * maxSpeed[i];
+        vy[i] = vy[i] / v2 * maxSpeed[i];
+      }
+    }
+  }
+
+  /*
+   * Description: Moves every torpedo according to its state. Released torpedoes coast
+   * towards the home ship and slow down to minSpeed, and pulsed torpedoes flee from the
+   * home ship. Torpedoes that follow then keep minDist behind their target, each moved
+   * after the body it follows, wherever that is stored.
+   * Parameters: hx, hy: Position of the home ship.
+   *             dt: Time step, in seconds.
+   * Return: (none)
+   */
+  void moveTorps(double hx, double hy, double dt) {
+    double deltaS = TxTorpedo.maxAccel * dt;
+    for (int i = 0; i < n; i++) {
+      int st = state[i];
+      if (st == TxTorpedo.RELEASED) { // Released: Decelerate if required to minSpeed and move forward.
+        prevX[i] = x[i];
+        prevY[i] = y[i];
+        x[i] += vx[i] * dt;
+        y[i] += vy[i] * dt;
+        double v = Math.sqrt(vx[i]*vx[i] + vy[i]*vy[i]);
+        if (v - deltaS > TxTorpedo.minSpeed) {
+          vx[i] -= vx[i] / v * deltaS;
+          vy[i] -= vy[i] / v * deltaS;
+        }
+      }
+      else if (st == TxTorpedo.PULSED) { // Move away from the home ship at max speed.
+        prevX[i] = x[i];
+        prevY[i] = y[i];
+        double dx = x[i] - hx, dy = y[i] - hy;
+        double m = Math.sqrt(dx*dx + dy*dy);
+        if (m != 0) {
+          x[i] += dx / m * maxSpeed[i] * dt;
+          y[i] += dy / m * maxSpeed[i] * dt;
+        }
+      }
+    }
+
+    Arrays.fill(moved, 0, n, false);
+    for (int i = 0; i < n; i++) {
+      if (state[i] != TxTorpedo.FOLLOW || moved[i]) continue;
+      // Walk up the followers that have not moved yet, then move them from the front.
+      int len = 0;
+      for (int j = i; state[j] == TxTorpedo.FOLLOW && !moved[j]; j = target[j]) {
+        moved[j] = true;
+        chain[len++] = j;
+      }
+      while (len > 0) follow(chain[--len], dt);
+    }
+  }
+
+  /*
+   * Description: Moves a torpedo that follows the parent ship or another torpedo.
+   * Parameters: i: Slot of the torpedo.
+   *             dt: Time step, in seconds.
+   * Return: (none)
+   */
+  private void follow(int i, double dt) {
+    prevX[i] = x[i];
+    prevY[i] = y[i];
+    int t = target[i];
+    double dx = x[t] - x[i], dy = y[t] - y[i];
+    angle[i] = Math.atan2(dy, dx);
+    double m = Math.sqrt(dx*dx + dy*dy);
+    if (m != 0) { // Do not move closer than minDist from the target point.
+      dx -= dx / m * minDist[i];
+      dy -= dy / m * minDist[i];
+    }
+    double dist = Math.sqrt(dx*dx + dy*dy);
+    double maxDist = maxSpeed[i] * dt;
+    if (dist > maxDist) { // Too far away to catch up immediately: move at max speed
+      x[i] += dx / dist * maxDist;
+      y[i] += dy / dist * maxDist;
+    }
+    else if (dist > minDist[i]) { // Close enough to move to optimal position within one tick
+      x[i] += dx;
+      y[i] += dy;
+    }
+  }
+
+  /*
+   * Description: Finds the released torpedoes that have made contact with the home ship,
+   * looking only at the bodies near it.
+   * Parameters: grid: Grid built from the current positions.
+   *             hx, hy: Position of the home ship.
+   *             contactRad: Contact radius of the home ship.
+   * Return: Number of torpedoes that hit the home ship for the first time.
+   */
+  int hitTorps(SpatialGrid grid, double hx, double hy, double contactRad) {
+    int hits = 0;
+    for (int k = grid.queryDisc(hx, hy, contactRad) - 1; k >= 0; k--) {
+      int i = grid.result(k);
+      if (state[i] == TxTorpedo.RELEASED && !hit[i]) {
+        hit[i] = true;
+        hits++;
+      }
+    }
+    return hits;
+  }
+}
@@ -2,38 +2,62 @@
 // Date: Jan 19 2025
 // Description: EnemyShip class.
 // The EnemyShip class moves along its FlightPath, launches and loads its TxTorpedoes.
+// Ships are taken from the session's pool and put back once none of their groups remain.
 
 import java.util.*;
 import java.util.List;
 import java.awt.*;
 import java.awt.geom.*;
 
-class EnemyShip {
+class EnemyShip extends Pooled implements TimerListener {
   private FlightPath flightPath;
-  private long cycleTime = 20000; // ms per path cycle
-  private double maxSpeed = 0.5; // bsu / sec
-  private double preferredSpeed = 0.4; // Will slow down to preferred speed when possible.
-  private double accel = 0.8; // bsu / sec^2
-  private Pt2 pos, vel;
+  private long cycleTime = 20 * GameClock.SEC; // ns per path cycle
+  static final double maxSpeed = 0.5; // bsu / sec
+  static final double preferredSpeed = 0.4; // Will slow down to preferred speed when possible.
+  static final double accel = 0.8; // bsu / sec^2
+  // Position, previous position, velocity and steering target are kept in the session's BodyStore.
+  private BodyStore bodies;
+  int id = -1; // Id of the ship in the BodyStore, or -1 while in the pool.
+  int groupRefs = 0; // Number of TorpedoGroups with this ship as their parent.
+  private long lastMoved = -1; // Game time of the last call to moveFwd().
+  private boolean toDelete = false; // Result of the last call to moveFwd().
+  private final Pt2 scratch = new Pt2(0, 0); // Target position, reused by moveFwd() so the tick does not allocate.
+
   public Pt2 getPos() {
-    return pos;
+    int i = bodies.slot(id);
+    return new Pt2(bodies.x[i], bodies.y[i]);
   }
 
-  public Pt2 getVel() {
-    return vel;
+  /*
+   * Description: Gets the position of the ship without allocating.
+   * Parameters: out: Pt2 to write the position into.
+   * Return: out.
+   */
+  Pt2 getPos(Pt2 out) {
+    int i = bodies.slot(id);
+    return out.set(bodies.x[i], bodies.y[i]);
   }
 
-  private Pt2_i scaledSz; // Scaled size of the enemy ship.
-  private static Pt2 bsSz = new Pt2(0.05, 0.05);
-  private static double minVel = 0.3;
-  private Pt2 targetPos; // For steering.
+  static final Pt2 bsSz = new Pt2(0.05, 0.05); // Size of the enemy ship, in BSU. Never modified.
+  private static final double minVel = 0.3;
 
   private String seq;
   private int matchCt = 0;
 
-  private long startTime; // Creation time of the enemy ship.
-  private long minTime = 5000; // Minimum time before launch of the enemy ship.
-  private long explodeTime; // Time of explosion
+  private long startTime; // Game time, in ns, at which the enemy ship starts moving.
+  private long minTime = 5000 * GameClock.MS; // Minimum time before launch of the enemy ship.
+  private long explodeTime; // Game time of explosion
+
+  // Timer kinds.
+  private static final int START = 0;    // Start moving.
+  private static final int MIN_TIME = 1; // Minimum time before launch has passed.
+  private static final int SEGMENT = 2;  // Reached the next flight path segment.
+  private boolean started = false;   // Whether the ship has started moving.
+  private boolean canLaunch = false; // Whether the minimum time before launch has passed.
+  private int nextSeg = 1;           // Next flight path segment to reach.
+  private long nextSegCycle = 0;     // Path cycle in which the next segment is reached.
+  private long segTimer = 0;         // Timer for reaching the next segment.
+  private long startTimer = 0, minTimer = 0; // Timers for START and MIN_TIME.
 
   private boolean exploded = false;
 
@@ -42,12 +66,12 @@ class EnemyShip {
 
   Game game;
 
-  private TorpedoGroup tGroup;
+  private long tGroupHandle = GroupArena.NONE; // Handle of the last group loaded, which may since have been removed.
   // List<TxTorpedo> torpedoes;
 
   /*
    * Description: Calculates the path fraction given the time since start.
-   * Parameters: timeSinceStart: time, in ms since the ship was created.
+   * Parameters: timeSinceStart: time, in ns since the ship started moving.
    * Return: Path fraction.
    */
   private double calcPathFrac(long timeSinceStart) {
@@ -55,24 +79,93 @@ class EnemyShip {
   }
 
   /*
-   * Description: Creates a new enemy ship and TorpedoGroup.
+   * Description: Sets up an enemy ship taken from the pool, and its TorpedoGroup.
    * Parameters: s: Engine sequence for the ship.
    *             g: Reference to the game.
    *             f: Flight path for this ship.
-   *             startDelay_ms: Delay before the ship starts moving.
-   * Return: (none)
+   *             start: Game time, in ns, at which the ship starts moving.
+   * Return: this.
    */
-  EnemyShip(String s, Game g, FlightPath f, long startDelay_ms) {
-    startTime = System.currentTimeMillis() + startDelay_ms;
-    targetPos = new Pt2(0, 0);
+  EnemyShip init(String s, Game g, FlightPath f, long start) {
+    startTime = start;
     game = g;
-    vel = new Pt2(0, 0);
     seq = s;
     flightPath = f;
-    pos = new Pt2(flightPath.getTargetPos(0.0)); //pathFrac));
-
-    cycleTime = (long) (flightPath.getTotalDist() / preferredSpeed * 1000);
+    bodies = g.bodies;
+    groupRefs = 0;
+    lastMoved = -1;
+    toDelete = false;
+    matchCt = 0;
+    started = false;
+    canLaunch = false;
+    nextSeg = 1;
+    nextSegCycle = 0;
+    segTimer = 0;
+    exploded = false;
+    locked = null;
+    hasTorps = true;
+    Pt2 pos = flightPath.getTargetPos(0.0);
+    id = bodies.add(BodyStore.SHIP_WAITING, pos.x, pos.y);
+    bodies.maxSpeed[bodies.slot(id)] = maxSpeed;
+
+    cycleTime = (long) (flightPath.getTotalDist() / preferredSpeed * GameClock.SEC);
     loadTorpedoes();
+    startTimer = game.timers.schedule(startTime + 1, this, START);
+    minTimer = game.timers.schedule(startTime + minTime, this, MIN_TIME);
+    return this;
+  }
+
+  /*
+   * Description: Cancels the ship's timers and drops its references as it goes back into the pool.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void recycle() {
+    game.timers.cancel(startTimer);
+    game.timers.cancel(minTimer);
+    game.timers.cancel(segTimer);
+    flightPath = null;
+    tGroupHandle = GroupArena.NONE;
+    locked = null;
+    id = -1;
+  }
+
+  /*
+   * Description: Handles the ship's timers.
+   * Parameters: kind: START, MIN_TIME or SEGMENT.
+   *             now: Current game time, in ns.
+   * Return: (none)
+   */
+  public void onTimer(int kind, long now) {
+    switch (kind) {
+      case START:
+        started = true;
+        if (locked == null) {
+          bodies.state[bodies.slot(id)] = BodyStore.SHIP_MOVING;
+          scheduleSegment();
+        }
+        break;
+      case MIN_TIME:
+        canLaunch = true;
+        break;
+      case SEGMENT:
+        flightPath.enterSegment(nextSeg);
+        if (++nextSeg == flightPath.segmentCt()) { // The last point closes the loop back to the first.
+          nextSeg = 0;
+          nextSegCycle++;
+        }
+        scheduleSegment();
+        break;
+    }
+  }
+
+  /*
+   * Description: Schedules the timer for reaching the next flight path segment.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  private void scheduleSegment() {
+    segTimer = game.timers.schedule(startTime + flightPath.segmentTime(nextSeg, nextSegCycle, cycleTime), this, SEGMENT);
   }
 
   /*
@@ -81,96 +174,91 @@ class EnemyShip {
    * Return: (none)
    */
   void loadTorpedoes() {
-    tGroup = new TorpedoGroup(seq, new ArrayList<>(), this);
+    TorpedoGroup tGroup = game.groups.acquire().init(seq, this);
+    tGroupHandle = tGroup.serial;
     TxTorpedo lastT = null;
     // Add torpedoes to the group.
     for (int i = 0; i < seq.length(); i++) {
-      TxTorpedo curr = new TxTorpedo(seq.charAt(i), pos, lastT == null ? pos : lastT.getPos(), i == 0, game.hShip, this);
+      TxTorpedo curr = game.torpPool.acquire().init(seq.charAt(i), lastT == null ? id : lastT.id, i == 0, tGroup);
       tGroup.torps.add(curr);
       lastT = curr;
     }
     if (matchCt == seq.length()) matchCt = 0;
   }
 
-  /*
-   * Description: Updates the scaled size when the window is resized.
-   * Parameters: bv: BattleView information.
-   * Return: (none)
-   */
-  void onResize(BattleView bv) {
-    scaledSz = bv.scale(bsSz);
-  }
-
   /*
    * Description: Updates parameters to lock onto a pulse.
    * Parameters: p: Target pulse.
+   *             now: Current game time, in ns.
    * Return: (none)
    */
-  void lock(Pulse p) {
+  void lock(Pulse p, long now) {
     locked = p;
+    game.timers.cancel(segTimer); // Leaves the flight path for good.
     exploded = true;
-    explodeTime = System.currentTimeMillis();
-    maxSpeed = 0.5;
+    explodeTime = now;
+    int i = bodies.slot(id);
+    bodies.state[i] = BodyStore.SHIP_LOCKED;
+    bodies.maxSpeed[i] = maxSpeed;
   }
 
-  // For debug only
-  private String dbgStatus = "";
-  private Color dbgClr = null;
-
-  private long prevTime = System.currentTimeMillis();
-
   /*
-   * Description: Moves the EnemyShip forward.
-   * Parameters: bv: BattleView information.
-   *             _delta: Unused.
+   * Description: Moves the EnemyShip along its flight path: updates its steering target
+   * and takes the flight path actions. The BodyStore moves and steers the ship itself.
+   * Only the first call per tick has an effect, since a ship can parent several groups.
+   * Parameters: vp: Viewport of the game.
+   *             now: Current game time, in ns.
+   *             delta: Simulation time step, in ns.
    * Return: Whether to remove the EnemyShip.
    */
-  boolean moveFwd(BattleView bv, long _delta) {
-
-    long currTime = System.currentTimeMillis();
-    long delta = currTime - prevTime;
-    prevTime = currTime;
-    long timeSinceStart = currTime - startTime;
-    dbgStatus = "";
-    boolean toDelete = false;
+  boolean moveFwd(Viewport vp, long now, long delta) {
+    if (now == lastMoved) return toDelete;
+    lastMoved = now;
+    int si = bodies.slot(id);
     if (locked != null) {
-      // move away from home ship at max speed if locked
-      pos.add(pos.diff(game.hShip.getPos()).norm().scl(maxSpeed*delta/1000));
-      if (!bv.inView(pos)) {
+      // The BodyStore moves a locked ship away from the home ship at max speed.
+      if (!vp.inView(bodies.x[si], bodies.y[si])) {
         toDelete = true;
       }
     }
-    else if (timeSinceStart>0) { // Can start moving.
-      double pathFrac = calcPathFrac(timeSinceStart);
-      pos.add(vel.scl(delta / 1000.0));
-      targetPos = flightPath.getTargetPos(pathFrac);
+    else if (started) { // Can start moving.
+      double pathFrac = calcPathFrac(now - startTime);
+      Pt2 targetPos = flightPath.getTargetPos(pathFrac, scratch);
+      bodies.tx[si] = targetPos.x;
+      bodies.ty[si] = targetPos.y;
       switch (flightPath.action(pathFrac)) { // Check the current flight path action.
         case FPt.LAUNCH:
-          double velnorm = G.magnitude(vel);
-          Pt2    hsvec   = game.hShip.getPos().diff(pos);
-          double hsvecnorm = G.magnitude(hsvec);
-          double dotprod = (hsvec.x*vel.x + hsvec.y*vel.y)/velnorm/hsvecnorm;
+          double vx = bodies.vx[si], vy = bodies.vy[si];
+          double velnorm = Math.sqrt(vx*vx + vy*vy);
+          Pt2    hs      = game.hShip.getPos();
+          double hsx     = hs.x - bodies.x[si], hsy = hs.y - bodies.y[si];
+          double hsvecnorm = G.magnitude(hsx, hsy);
+          double dotprod = (hsx*vx + hsy*vy)/velnorm/hsvecnorm;
           if (dotprod>0.95) { // vel is pointing almost directly towards the homeship => good to launch!
             flightPath.actionTaken(); // Consume the FPt.LAUNCH signal and stop flightPath.action() from returning it again.
-            if (vel.magn() < minVel)  // Avoid launching clusters at low speed
+            if (velnorm < minVel)  // Avoid launching clusters at low speed
               break;
-            if (currTime - startTime < minTime) { // Must wait minimum time before launching
+            if (!canLaunch) { // Must wait minimum time before launching
               break;
             }
             hasTorps = false;
             matchCt = 0;
-            List<TxTorpedo> launchedTorps = Collections.synchronizedList(new ArrayList<>());
-            // Loop through all torpedoes and launch.
-            for (int i = 0; i < tGroup.torps.size(); i++) {
-              TxTorpedo t = tGroup.torps.get(i);
-              if (t.state == TxTorpedo.FOLLOW) {
-                t.launch(hsvec.scl(velnorm)); //vel);
-                launchedTorps.add(t);
+            TorpedoGroup tGroup = game.groups.get(tGroupHandle);
+            if (tGroup != null) { // Not removed since it was loaded.
+              // Loop through all torpedoes and launch.
+              for (int i = 0; i < tGroup.torps.size(); i++) {
+                TxTorpedo t = tGroup.torps.get(i);
+                if (t.getState() == TxTorpedo.FOLLOW) {
+                  t.launch(hsx*velnorm, hsy*velnorm); //vel);
+                }
               }
-            }
 
-            tGroup.parentShip = null;
-            new TorpedoGroup("", Collections.synchronizedList(new ArrayList<>()), this);
+              if (tGroup.parentShip == this) { // Detach the launched group, unless already detached by an earlier launch.
+                tGroup.parentShip = null;
+                groupRefs--;
+              }
+            }
+            game.groups.acquire().init("", this);
           } // if (dotprod>..)
           break;
 
@@ -183,93 +271,83 @@ class EnemyShip {
           hasTorps = true;
           break;
       }
-      Pt2 diff = targetPos.diff(pos);
-      double maxDeltaV = accel * delta / 1000.0;
-      double dist = diff.magn();
-      double currSpeed = vel.magn();
-      dbgClr = Color.WHITE;
-      // decel to preferred speed = path movement speed and do not accelerate
-      if (vel.magn() > preferredSpeed && dist < 0.1) {
-        vel.sub(vel.norm().scl(maxDeltaV));
-        dbgStatus = "DECEL-TOSPEED";
-        dbgClr = Color.GREEN;
-        if (preferredSpeed - vel.magn() > 0.01) {
-          vel.set(diff.norm().scl(preferredSpeed));
-        }
-      } else if (dist > 0.1 && currSpeed * (currSpeed / accel) / 2 > dist * 0.8) {
-        // @ max deceleration would leave <20% distance left, decel now
-        vel.sub(vel.norm().scl(maxDeltaV));
-        dbgStatus = "DECEL";
-      }
-      // accelerate to cover distance
-      else if (dist > 0.1) {
-        vel.add(diff.norm().scl(maxDeltaV));
-        dbgStatus = "ACCEL";
-      } else
-        dbgStatus = "NONE";
-      // Cap speed at max speed.
-      if (vel.magn() > maxSpeed) {
-        dbgStatus += "-MAXS";
-        vel.set(vel.norm().scl(maxSpeed));
-      }
     }
     return toDelete;
   }
 
+  /*
+   * Description: Copies the enemy ship into a render snapshot.
+   * Parameters: s: Snapshot to write into.
+   * Return: (none)
+   */
+  void snapshot(RenderSnapshot s) {
+    int i = s.addShip();
+    int b = bodies.slot(id);
+    s.shipX[i] = bodies.x[b];
+    s.shipY[i] = bodies.y[b];
+    s.shipPrevX[i] = bodies.prevX[b];
+    s.shipPrevY[i] = bodies.prevY[b];
+    s.shipAng[i] = Math.atan2(bodies.ty[b] - bodies.y[b], bodies.tx[b] - bodies.x[b]);
+    s.shipStart[i] = startTime;
+    s.shipExplodeTime[i] = exploded ? explodeTime : -1;
+    if (G.DEBUG) s.shipDbg[i] = debugSnapshot(s.renderTime);
+  }
+
   // shipTris: Path2Ds for the facets of the enemy ship's appearance.
-  private Path2D[] shipTris = {new Path2D.Double(), new Path2D.Double(), new Path2D.Double()};
+  private static final Path2D[] shipTris = {new Path2D.Double(), new Path2D.Double(), new Path2D.Double()};
   // triNs: 3D normal vectors of the facets (for illumination calculations)
   // private double[][] triNs = {{-0.5,0,Math.sqrt(3)/2}, {0,-0.5,Math.sqrt(3)/2}, {0.5,0,Math.sqrt(3)/2}, };
-  private double[][] triNs = {{-Math.sqrt(2)/2,0,Math.sqrt(2)/2}, {0,-0.5,Math.sqrt(3)/2}, {Math.sqrt(2)/2,0,Math.sqrt(2)/2}, };
-  private boolean shipTrisReadyQ=false; // A flag for initializing the facet shapes.
+  private static final double[][] triNs = {{-Math.sqrt(2)/2,0,Math.sqrt(2)/2}, {0,-0.5,Math.sqrt(3)/2}, {Math.sqrt(2)/2,0,Math.sqrt(2)/2}, };
+
+  static {  // Define the shape of the ship facets.
+    double s=0.7;
+    Path2D
+    p = shipTris[0];
+    p.moveTo(-0.5*s,-0.75*s); p.lineTo(-s, s); p.lineTo(0, 0.75*s);
+      p.lineTo(0,0);  // this last one is to create some overlapping to eliminate the gap.
+    p.closePath();
+    p=shipTris[1];
+    p.moveTo(0.5*s, -0.75*s);  p.lineTo(-0.5*s, -0.75*s);  p.lineTo(0, 0.75*s);
+      p.lineTo(0.5*s,0); // the last one is to create some overlapping to eliminate the gap.
+    p.closePath();
+    p=shipTris[2];
+    p.moveTo(s,s); p.lineTo(0.5*s, -0.75*s); p.lineTo(0, 0.75*s);
+    p.closePath();
+  }
 
   /*
-   * Description: Draws the enemy ship.
+   * Description: Draws an enemy ship from a render snapshot.
    * Parameters: bv: BattleView information.
-   *             g: Graphics object to draw onto.
+   *             _g: Graphics object to draw onto.
+   *             s: Snapshot to draw from.
+   *             idx: Index of the ship in the snapshot.
    * Return: (none)
    */
-  void draw(BattleView bv, Graphics _g) {
-    if (!shipTrisReadyQ) {  // Do this only for the first time: define the shape of the ship facets.
-      double s=0.7;
-      Path2D
-      p = shipTris[0];
-      p.moveTo(-0.5*s,-0.75*s); p.lineTo(-s, s); p.lineTo(0, 0.75*s);
-        p.lineTo(0,0);  // this last one is to create some overlapping to eliminate the gap.
-      p.closePath();
-      p=shipTris[1];
-      p.moveTo(0.5*s, -0.75*s);  p.lineTo(-0.5*s, -0.75*s);  p.lineTo(0, 0.75*s);
-        p.lineTo(0.5*s,0); // the last one is to create some overlapping to eliminate the gap.
-      p.closePath();
-      p=shipTris[2];
-      p.moveTo(s,s); p.lineTo(0.5*s, -0.75*s); p.lineTo(0, 0.75*s);
-      p.closePath();
-      shipTrisReadyQ=true;
-    }
-
-    long timeNow = System.currentTimeMillis();
-    if (startTime>=timeNow) return; // Still in the prelaunch period.
+  static void draw(BattleView bv, Graphics _g, RenderSnapshot s, int idx) {
+    long timeNow = s.renderTime;
+    if (s.shipStart[idx]>=timeNow) return; // Still in the prelaunch period.
 
     Graphics2D g = (Graphics2D) _g;
+    Pt2_i scaledSz = bv.esSz;
 
-    if (scaledSz==null) scaledSz = bv.scale(bsSz);
+    if (G.DEBUG) // Debug flight path and state.
+      debugDraw(bv, g, s, idx);
 
-    if (G.DEBUG) // Debug flight path.
-      flightPath.debugDraw(bv, g);
-
-    Pt2 delta = targetPos.diff(pos);
-    double ang = Math.atan2(delta.y, delta.x);
+    double ang = s.shipAng[idx];
 
     Pt2 shiftVec = new Pt2(1, 0).rotate(ang).norm().scl(bsSz.x / 2);
 
-    Pt2_i scrCoord = bv.toScrPt(pos.sum(shiftVec));
+    double a = s.alpha;
+    Pt2 drawPos = new Pt2(s.shipPrevX[idx] + (s.shipX[idx] - s.shipPrevX[idx]) * a,
+        s.shipPrevY[idx] + (s.shipY[idx] - s.shipPrevY[idx]) * a);
+    Pt2_i scrCoord = bv.toScrPt(drawPos.sum(shiftVec));
 
     long timeAfterX=-1;  // -1 means not yet exploded.
-    if (exploded) {
-      timeAfterX = timeNow - explodeTime;
+    if (s.shipExplodeTime[idx] >= 0) {
+      timeAfterX = timeNow - s.shipExplodeTime[idx];
       if (timeAfterX>0) // Animate explosion.
       {
-        Path2D l = G.mkExplodePath(scaledSz.x, timeAfterX);
+        Path2D l = G.mkExplodePath(scaledSz.x, timeAfterX, bv.game.rng.cosmetic);
         AffineTransform at = new AffineTransform();
         at.translate(scrCoord.x, scrCoord.y);
 
@@ -287,10 +365,10 @@ class EnemyShip {
       at.rotate(Math.PI / 2 - ang, scaledSz.x / 2, scaledSz.y / 2);
       at.scale(scaledSz.x, scaledSz.y);
       // Rotate the light vector by -ang (instead of rotation the normals of the ship's facets).
-      double a = 5*Math.PI/4 - ang;
+      double la = 5*Math.PI/4 - ang;
       double r=0.5*Math.sqrt(3);
-      double rcos= r * Math.cos(a);
-      double rsin= -r * Math.sin(a);
+      double rcos= r * Math.cos(la);
+      double rsin= -r * Math.sin(la);
       AffineTransform xsave = g.getTransform();
       g.transform(at);
       // Draw the ship's facets
@@ -304,15 +382,43 @@ class EnemyShip {
         g.fill(p);
       }
       g.setTransform(xsave);
+    } // if (exploded) .. else ..
+  }
 
-      if (G.DEBUG) { // Debug draw the current path fraction.
-        double pathFrac = calcPathFrac(timeNow-startTime);
-        bv.dbgStr(String.format("dist%.2f", flightPath.getTargetPos(pathFrac).diff(pos).magn()),
-                  pos.sum(new Pt2(0, 0.03)), g, Color.WHITE);
+  /*
+   * Description: Copies the flight path and steering state for debug drawing, so the
+   * painting thread does not read the live ship.
+   * Parameters: timeNow: Game time, in ns, being drawn.
+   * Return: Debug snapshot of the ship.
+   */
+  private ShipDebug debugSnapshot(long timeNow) {
+    ShipDebug d = new ShipDebug();
+    flightPath.debugSnapshot(d, game.rng.cosmetic);
+    d.exploded = exploded;
+    if (!exploded)
+      d.dist = flightPath.getTargetPos(calcPathFrac(timeNow-startTime)).diff(getPos()).magn();
+    d.steer = bodies.steer[bodies.slot(id)];
+    d.matchCt = matchCt;
+    return d;
+  }
 
-        bv.dbgStr(dbgStatus + " " + matchCt, pos, g, dbgClr);
-      }
-    } // if (exploded) .. else ..
+  /*
+   * Description: Debug draws the flight path, the current path fraction and steering state.
+   * Parameters: bv: BattleView information.
+   *             g: Graphics object to draw onto.
+   *             s: Snapshot to draw from.
+   *             idx: Index of the ship in the snapshot.
+   * Return: (none)
+   */
+  private static void debugDraw(BattleView bv, Graphics2D g, RenderSnapshot s, int idx) {
+    ShipDebug d = s.shipDbg[idx];
+    FlightPath.debugDraw(bv, g, d);
+    if (d.exploded) return;
+    Pt2 pos = new Pt2(s.shipX[idx], s.shipY[idx]);
+    bv.dbgStr(String.format("dist%.2f", d.dist), pos.sum(new Pt2(0, 0.03)), g, Color.WHITE);
+
+    String[] steerStr = {"NONE", "ACCEL", "DECEL", "DECEL-TOSPEED"};
+    bv.dbgStr(steerStr[d.steer] + " " + d.matchCt, pos, g, d.steer == BodyStore.STEER_TOSPEED ? Color.GREEN : Color.WHITE);
   }
 
 }
@@ -10,7 +10,7 @@ import java.awt.*;
 
 class FlightPath {
   private List<FPt> path;
-  private int lastIdx; // Last stored index to determine
+  private int posIdx; // Segment of the last target position. Only a hint for the next search.
   private double totalDist; // Total length of the path.
   public double getTotalDist() {
     return totalDist;
@@ -18,8 +18,9 @@ class FlightPath {
 
   private double dbg_lastFrac; // Last saved pathFrac. For debug only.
   private int actionPending = FPt.NONE; // Recommended action.
-  // Colour of the path.
-  private Color dbgClr = new Color((int)(Math.random()*255),(int)(Math.random()*255),(int)(Math.random()*255));
+  private SplittableRandom rnd; // Gameplay random number stream, for the launch die roll.
+  // Colour of the path. Picked on the first debug snapshot.
+  private Color dbgClr;
 
   /*
    * Description: Gets the target position in the flight path given the path fraction.
@@ -27,31 +28,66 @@ class FlightPath {
    * Return: Target position, in BattleSpace.
    */
   Pt2 getTargetPos(double pathFrac)
+  {
+    return getTargetPos(pathFrac, new Pt2(0, 0));
+  }
+
+  /*
+   * Description: Gets the target position in the flight path given the path fraction,
+   * without allocating.
+   * Parameters: pathFrac: Fraction of the path travelled.
+   *             out: Pt2 to write the target position into.
+   * Return: out.
+   */
+  Pt2 getTargetPos(double pathFrac, Pt2 out)
   {
     dbg_lastFrac = pathFrac;
     double dist = pathFrac * totalDist;
-    // Loop through path segments until we find one between the required distances
-    for (int i=0; i<path.size()-1; i++) {
-      FPt nextPt = path.get(i+1);
-      if (nextPt.distTo > dist) { // found the right path segment
-        FPt currPt = path.get(i);
-        if (i != lastIdx) {                 // Moving onto a new track segment.
-          lastIdx = i;
-          actionPending = currPt.action;
-          if (actionPending==FPt.LAUNCH) {  // Roll a die to see if we should launch or not in this launchable segment.
-            if (Math.random()>0.7)
-              actionPending=FPt.NONE;       // Sorry... Try again next time.
-          }
-        }
-        double currSectionDist = nextPt.distTo - currPt.distTo;
-        double fracBtw = (pathFrac - currPt.distTo/totalDist)/(currSectionDist/totalDist);
-        return Pt2.interp(currPt.crd, nextPt.crd, fracBtw);
-      }
-    }
-    return null;
+    // Start from the last segment, since ships only move forward along the path.
+    int i = posIdx;
+    if (i >= path.size()-1 || path.get(i).distTo > dist) i = 0; // Wrapped round to the next cycle.
+    while (i < path.size()-2 && path.get(i+1).distTo <= dist) i++;
+    posIdx = i;
+    FPt currPt = path.get(i);
+    FPt nextPt = path.get(i+1);
+    double currSectionDist = nextPt.distTo - currPt.distTo;
+    double fracBtw = (pathFrac - currPt.distTo/totalDist)/(currSectionDist/totalDist);
+    return Pt2.interp(currPt.crd, nextPt.crd, fracBtw, out);
   } // getTargetPos()
 
+  /*
+   * Description: Returns the number of segments in a cycle of the path.
+   * Parameters: (none)
+   * Return: Number of segments.
+   */
+  int segmentCt() {
+    return path.size()-1;
+  }
+
+  /*
+   * Description: Calculates when a ship reaches the start of a segment.
+   * Parameters: i: Index of the segment.
+   *             cycle: Number of whole cycles already travelled.
+   *             cycleTime: Time, in ns, of one cycle of the path.
+   * Return: Time, in ns since the ship started moving, at which the segment starts.
+   */
+  long segmentTime(int i, long cycle, long cycleTime) {
+    return (long) Math.ceil(cycleTime * (cycle + path.get(i).distTo/totalDist));
+  }
 
+  /*
+   * Description: Moves onto a new track segment and picks up its action.
+   * Called by the ship's timer when it reaches the start of the segment.
+   * Parameters: i: Index of the segment.
+   * Return: (none)
+   */
+  void enterSegment(int i) {
+    actionPending = path.get(i).action;
+    if (actionPending==FPt.LAUNCH) {  // Roll a die to see if we should launch or not in this launchable segment.
+      if (rnd.nextDouble()>0.7)
+        actionPending=FPt.NONE;       // Sorry... Try again next time.
+    }
+  }
 
   /*
    * Description: Returns the action recommended at the current path fraction.
@@ -74,11 +110,13 @@ class FlightPath {
   /*
    * Description: Creates a new FlightPath from a list of FlightPoints.
    * Parameters: pts: Flight Path points.
+   *             r: Gameplay random number stream.
    * Return: (none)
    */
-  FlightPath(List<FPt> pts)
+  FlightPath(List<FPt> pts, SplittableRandom r)
   {
     path = processFPts(pts);
+    rnd = r;
   }
 
   /*
@@ -121,27 +159,51 @@ class FlightPath {
       newPts.add(new FPt(origPt.crd.rotateAbout(theta, center), origPt.action));
     }
     path = processFPts(newPts);
+    rnd = base.rnd;
+  }
+
+  /*
+   * Description: Copies the FlightPath into a ship's debug snapshot.
+   * Parameters: d: Debug snapshot to write into.
+   *             r: Random stream to pick the colour of the path from on the first call.
+   * Return: (none)
+   */
+  void debugSnapshot(ShipDebug d, SplittableRandom r) {
+    if (dbgClr == null)
+      dbgClr = new Color(r.nextInt(255), r.nextInt(255), r.nextInt(255));
+    d.pathClr = dbgClr;
+    d.pathX = new double[path.size()];
+    d.pathY = new double[path.size()];
+    for (int i=0; i<path.size(); i++) {
+      d.pathX[i] = path.get(i).crd.x;
+      d.pathY[i] = path.get(i).crd.y;
+    }
+    d.frac = dbg_lastFrac;
+    Pt2 t = getTargetPos(dbg_lastFrac);
+    d.fracX = t.x;
+    d.fracY = t.y;
   }
 
   /*
-   * Description: Draws the FlightPath for debug.
+   * Description: Draws a FlightPath for debug from a ship's debug snapshot.
    * Parameters: bv: BattleView info
    *             g: Graphics object to draw onto.
+   *             d: Debug snapshot to draw from.
    * Return: (none)
    */
-  void debugDraw(BattleView bv, Graphics g) {
+  static void debugDraw(BattleView bv, Graphics g, ShipDebug d) {
     Color c = g.getColor();
-    g.setColor(dbgClr);
-    FPt lastPt = path.get(path.size()-1);
+    g.setColor(d.pathClr);
+    int last = d.pathX.length-1;
     // Loop through paths, draw every segment
-    for (FPt p : path) {
-      Pt2_i fromCrd = bv.toScrPt(lastPt.crd);
-      Pt2_i toCrd = bv.toScrPt(p.crd);
+    for (int i=0; i<d.pathX.length; i++) {
+      Pt2_i fromCrd = bv.toScrPt(new Pt2(d.pathX[last], d.pathY[last]));
+      Pt2_i toCrd = bv.toScrPt(new Pt2(d.pathX[i], d.pathY[i]));
       g.drawLine(fromCrd.x, fromCrd.y, toCrd.x, toCrd.y);
-      // bv.dbgPt(p.crd, g, p == path.get(lastIdx) ? Color.GREEN : Color.WHITE);
-      lastPt = p;
+      last = i;
     }
-    bv.dbgStr(String.format("%.2f, %s", dbg_lastFrac, getTargetPos(dbg_lastFrac)), getTargetPos(dbg_lastFrac), g, Color.WHITE);
+    Pt2 t = new Pt2(d.fracX, d.fracY);
+    bv.dbgStr(String.format("%.2f, %s", d.frac, t), t, g, Color.WHITE);
     g.setColor(c);
   }
 }
@@ -0,0 +1,88 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: FocusIndex class.
+// The live TorpedoGroups bucketed by the number of characters left to type (sequence
+// length - match count), kept up to date by the SeqIndex as groups come and go and as
+// their match counts change. The focused group is then found in the first non-empty
+// bucket, comparing distances only among the few groups in it.
+
+import java.util.*;
+
+class FocusIndex {
+  private final ArrayList<ArrayList<TorpedoGroup>> buckets = new ArrayList<>(); // Groups by characters left.
+
+  /*
+   * Description: Adds a group to the bucket of its characters left.
+   * Parameters: tg: Group to add.
+   * Return: (none)
+   */
+  void add(TorpedoGroup tg) {
+    int d = tg.seq.length() - tg.matchCt;
+    while (buckets.size() <= d) buckets.add(new ArrayList<>());
+    ArrayList<TorpedoGroup> b = buckets.get(d);
+    tg.focusLeft = d;
+    tg.focusPos = b.size();
+    b.add(tg);
+  }
+
+  /*
+   * Description: Removes a group from its bucket.
+   * Parameters: tg: Group to remove. It must be in the index.
+   * Return: (none)
+   */
+  void remove(TorpedoGroup tg) {
+    ArrayList<TorpedoGroup> b = buckets.get(tg.focusLeft);
+    int last = b.size() - 1;
+    if (tg.focusPos != last) {
+      TorpedoGroup moved = b.get(last);
+      b.set(tg.focusPos, moved);
+      moved.focusPos = tg.focusPos;
+    }
+    b.remove(last);
+  }
+
+  /*
+   * Description: Moves a group to another bucket after its match count has changed.
+   * Parameters: tg: Group whose match count has changed. It must be in the index.
+   * Return: (none)
+   */
+  void update(TorpedoGroup tg) {
+    if (tg.seq.length() - tg.matchCt == tg.focusLeft) return;
+    remove(tg);
+    add(tg);
+  }
+
+  /*
+   * Description: Removes every group.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void clear() {
+    for (int d = 0; d < buckets.size(); d++) buckets.get(d).clear();
+  }
+
+  /*
+   * Description: Finds the focused group: the one with the fewest characters left, and
+   * among those the closest one, or the earliest in the SeqIndex if equally close.
+   * Parameters: p: Center point to check distances from.
+   * Return: Focused group, or null if there are no groups.
+   */
+  TorpedoGroup focused(Pt2 p) {
+    for (int d = 0; d < buckets.size(); d++) {
+      ArrayList<TorpedoGroup> b = buckets.get(d);
+      if (b.isEmpty()) continue;
+      TorpedoGroup best = null;
+      double minDist = 0;
+      for (int i = 0; i < b.size(); i++) {
+        TorpedoGroup tg = b.get(i);
+        double dist = tg.firstDist(p);
+        if (best == null || dist < minDist || dist == minDist && tg.idxPos < best.idxPos) {
+          best = tg;
+          minDist = dist;
+        }
+      }
+      return best;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,121 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: FramePacer class.
+// Paces the render loop to a target frame rate. Frames are scheduled against absolute
+// deadlines, so the time spent updating and painting is not added on top of the wait
+// and the rate does not drift. Missed deadlines are counted rather than hidden.
+
+import java.util.concurrent.locks.*;
+
+class FramePacer {
+  static final long spinNs = 200000; // Final stretch before a deadline that is busy-waited, in ns.
+  static final long lateNs = 1000000; // A frame woken this much past its deadline is counted as late.
+
+  private long period;   // Target time between frames, in ns, or 0 if uncapped.
+  private long deadline; // Time (System.nanoTime()) at which the next frame is due.
+
+  // Counters, read by other threads for display.
+  volatile long frames = 0;   // Number of frames paced.
+  volatile long overruns = 0; // Frames whose update and paint took longer than the whole frame period.
+  volatile long late = 0;     // Frames that woke more than lateNs after their deadline.
+
+  /*
+   * Description: Creates a new frame pacer.
+   * Parameters: hz: Target frame rate, in frames per second, or <= 0 for uncapped.
+   * Return: (none)
+   */
+  FramePacer(int hz) {
+    setRate(hz);
+  }
+
+  /*
+   * Description: Changes the target frame rate, starting from the next frame.
+   * Parameters: hz: Target frame rate, in frames per second, or <= 0 for uncapped.
+   * Return: (none)
+   */
+  synchronized void setRate(int hz) {
+    period = hz > 0 ? 1000000000L / hz : 0;
+    deadline = System.nanoTime() + period;
+  }
+
+  /*
+   * Description: Restarts the schedule from now, eg after the loop has been idle.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  synchronized void restart() {
+    deadline = System.nanoTime() + period;
+  }
+
+  /*
+   * Description: Returns the target time between frames.
+   * Parameters: (none)
+   * Return: Frame period, in ns, or 0 if uncapped.
+   */
+  synchronized long getPeriod() {
+    return period;
+  }
+
+  /*
+   * Description: Returns the target frame rate.
+   * Parameters: (none)
+   * Return: Frames per second, or 0 if uncapped.
+   */
+  synchronized int getRate() {
+    return period > 0 ? (int) Math.round(1e9 / period) : 0;
+  }
+
+  /*
+   * Description: Waits until the next frame is due. If the frame is already overdue by
+   * more than a whole period, the schedule restarts from now instead of bunching up
+   * frames to catch up.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void await() throws InterruptedException {
+    long p, d0;
+    synchronized (this) {
+      p = period;
+      d0 = deadline;
+    }
+    long d = d0;
+    frames++;
+    if (p == 0) { // Uncapped: only give other threads a chance to run.
+      Thread.yield();
+      if (Thread.interrupted()) throw new InterruptedException();
+      return;
+    }
+
+    long now = System.nanoTime();
+    if (now - d > p) { // Overran the whole frame.
+      overruns++;
+      d = now;
+    }
+    else {
+      // Park until just before the deadline, then spin the rest of the way,
+      // since parking can oversleep by a fair fraction of a high refresh rate frame.
+      long remaining;
+      while ((remaining = d - System.nanoTime()) > spinNs) {
+        LockSupport.parkNanos(this, remaining - spinNs);
+        if (Thread.interrupted()) throw new InterruptedException();
+      }
+      while (d - System.nanoTime() > 0)
+        Thread.onSpinWait();
+      if (System.nanoTime() - d > lateNs) late++;
+    }
+
+    synchronized (this) {
+      if (deadline == d0 && period == p) deadline = d + p; // Unless the rate was changed meanwhile.
+    }
+  }
+
+  /*
+   * Description: Summarises the counters.
+   * Parameters: (none)
+   * Return: One-line summary of the frame counters.
+   */
+  public String toString() {
+    return String.format("%d frames at %s, %d overruns, %d late", frames,
+        getRate() > 0 ? getRate() + " fps" : "uncapped", overruns, late);
+  }
+}
@@ -1,158 +1,141 @@
 // Name: Rufin Hsu
 // Date: Jan 19, 2025
-// Description: Game and BattleView classes.
+// Description: Game and Viewport classes.
+// A Game is one self-contained game session. It runs without any display, so the
+// same simulation drives the Swing front end (GameUI) and headless runs (Headless).
 
 import java.util.*;
 import java.util.List;
 import java.io.*;
-import javax.swing.*;
-
-import java.awt.*;
-import java.awt.event.*;
 import java.util.concurrent.*;
 
-class Game implements KeyListener, ActionListener {
-  JFrame appFrame; // Main app display frame
-  JPanel appPanel; // Gameplay panel
-  JPanel statPanel; // Statistics bottom panel
-  JPanel titlePanel; // Title screen panel
-  JPanel summaryPanel; // Post-game summary panel
-
-  String helpTxt; // Help text, HTML-formatted.
-
-  BattleView battleView;
+class Game implements TimerListener {
   AttackWave aWave;
   HomeShip hShip;
-  Thread thread; // Game animation thread
   GameStat stat;
+  RandomSource rng; // Seeded random numbers for this session.
+  Viewport view; // Area of BattleSpace in play.
+  GameClock clock; // Source of game time.
+  long simTime; // Game time, in ns, of the latest simulation tick.
 
   // Stores every torpedo group, indexed by its torpedo group sequence.
-  // The List<TorpedoGroup> allows for thread-safe storage of duplicate torpedo groups.
-  ConcurrentHashMap<String, List<TorpedoGroup>> tGroups;
-
-
-  static long winWaitTime = 10000; // Time in ms to wait after a win before displaying the summary.
-  long winTime = -1; // Time of overall game win.
+  // Several groups may share a sequence. Only used by the tick thread.
+  SeqIndex tGroups = new SeqIndex();
+  // Positions, velocities and states of every enemy ship and torpedo.
+  BodyStore bodies = new BodyStore();
+  // Bodies by position, rebuilt every tick after they move.
+  SpatialGrid grid = new SpatialGrid();
+
+  // Pools of the session's entities, reused across waves and restarts. Torpedo groups
+  // live in an arena instead, so they can be referred to by handle.
+  final Pool<Pulse> pulsePool = new Pool<>(Pulse::new);
+  final Pool<EnemyShip> shipPool = new Pool<>(EnemyShip::new);
+  final GroupArena groups = new GroupArena();
+  final Pool<TxTorpedo> torpPool = new Pool<>(TxTorpedo::new);
+
+  // Timed events of the session, fired by the simulation ticks.
+  TimerWheel timers = new TimerWheel(TICK_NS, 0);
+
+  // Systems of a simulation tick, in the order they run.
+  final World world = new World();
+
+  // Keystrokes waiting to be applied by the next simulation tick.
+  KeyQueue keys = new KeyQueue(256);
+  // Render snapshots published after each frame's ticks, or null if nothing draws this game.
+  SnapshotExchange snapshots;
+
+  static final long winWaitTime = 10000 * GameClock.MS; // Time to wait after a win before displaying the summary.
+  static final long TICK_NS = 10 * GameClock.MS; // Fixed simulation time step (100 ticks per second).
+  static final int maxCatchUp = 5; // Max. number of simulation ticks run per frame when behind.
+  static final long maxKeyLag = 100 * GameClock.MS; // Max. age of a keystroke event before it is stamped.
+  long winTime = -1; // Game time of overall game win.
   int waveCt; // Wave number, starting at 1.
+  private boolean over = false; // Whether the game has been won and the summary is due.
+  private boolean winWaited = false; // Whether winWaitTime has passed since the win.
+
+  private long lastClockT; // Clock reading at the last call to advance().
+  private long acc = 0; // Game time, in ns, not yet consumed by simulation ticks.
 
-  // Iterator for the list of phrases read in from the file.
+  // Master phrases, one per wave, and the iterator through them.
+  private List<String> phrases;
   Iterator<String> phraseIt;
+  // Plan of the next wave, prepared in the background, or null after the last phrase.
+  private CompletableFuture<WavePlan> nextWave;
 
-  JPanel activePanel = null;
   /*
-   * Description: Sets the active (displayed) panel to the given panel.
-   * Parameters: p: Panel to display.
+   * Description: Creates a new game session and its first attack wave.
+   * Parameters: c: Source of game time.
+   *             phrases: Master phrases, one per wave.
+   *             seed: Seed for all of the session's random numbers.
    * Return: (none)
    */
-  void setActivePanel(JPanel p) {
-    if (activePanel != null) activePanel.setVisible(false);
-    activePanel = p;
-    p.setVisible(true);
+  Game(GameClock c, List<String> phrases, long seed) {
+    this(c, phrases);
+    reset(seed);
   }
 
   /*
-   * Desciption: Initialises the main JFrame, title and game panels
-   * Parameters: (none)
+   * Description: Creates a new game session without starting a game. reset() starts the
+   * first game.
+   * Parameters: c: Source of game time.
+   *             phrases: Master phrases, one per wave.
    * Return: (none)
    */
-  void initGraphics() {
-
-    appFrame = new JFrame("Battle Keys");
-    appFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    appFrame.setFocusable(true);
-    appFrame.addKeyListener(this);
-
-    JPanel globalCtn = new JPanel(new CardLayout());
-    JScrollPane jsp = new JScrollPane(globalCtn);
-    appFrame.add(jsp);
-
-    titlePanel = new JPanel(new GridBagLayout());
-    titlePanel.setBackground(Color.BLACK);
-    GridBagConstraints tgbc = new GridBagConstraints();
-    // tgbc.ipady = 50;
-    tgbc.insets = new Insets(25, 0, 25, 0);
-
-    globalCtn.add(titlePanel);
-
-    G.init();
-
-    // BufferedImage bi = ImageIO.read(new File("./es.png"));
-    // JLabel name = new JLabel(new ImageIcon("./es.png"));
-    JLabel name = new JLabel("BaTtLe KeYs");
-    name.setFont(G.titleFont.deriveFont(100f) ); //new Font("Courier New", Font.PLAIN, 50));
-    // name.setFont(btnFont.deriveFont(100f) ); //new Font("Courier New", Font.PLAIN, 50));
-    name.setForeground(new Color(0xffd700)); //Color(60,60,180));
-    tgbc.gridy++;
-    titlePanel.add(name, tgbc);
-    JButton btn = new JButton("Start");
-    btn.setFont(G.btnFont.deriveFont(30f)); //new Font("Courier New", Font.PLAIN, 30));
-    btn.setPreferredSize(new Dimension(240,40));
-    btn.addActionListener(this);
-    btn.setActionCommand("start");
-    tgbc.gridy++;
-    titlePanel.add(btn, tgbc);
-
-    btn = new JButton("How to Play");
-    btn.setFont(G.btnFont.deriveFont(30f)); //new Font("Courier New", Font.PLAIN, 30));
-    btn.setPreferredSize(new Dimension(240,40));
-    btn.addActionListener(this);
-    btn.setActionCommand("help");
-    tgbc.gridy++;
-    titlePanel.add(btn, tgbc);
-
-    btn = new JButton("Exit");
-    btn.setFont(G.btnFont.deriveFont(30f)); //new Font("Courier New", Font.PLAIN, 30));
-    btn.setPreferredSize(new Dimension(240,40));
-    btn.addActionListener(this);
-    btn.setActionCommand("exit");
-    tgbc.gridy++;
-    titlePanel.add(btn, tgbc);
-
-    globalCtn.add(titlePanel);
-    titlePanel.setVisible(true);
-    activePanel = titlePanel;
-
-    summaryPanel = new JPanel(new GridBagLayout());
-
-
-    globalCtn.add(summaryPanel);
-    summaryPanel.setVisible(false);
-
-
-    appPanel = new JPanel(new GridBagLayout());
-    globalCtn.add(appPanel);
-    appPanel.setVisible(false);
-
-
-    appFrame.setMinimumSize(new Dimension(800, 700));
-    appFrame.setPreferredSize(new Dimension(700, 800));
-    appFrame.pack();
-    appFrame.setVisible(true);
+  Game(GameClock c, List<String> phrases) {
+    clock = c;
+    this.phrases = phrases;
+    stat = new GameStat(this);
+    hShip = new HomeShip(new Pt2(0, 0), this);
+    view = new Viewport(hShip.getPos(), new Pt2(2.0, 2.0));
+    world.add("input", this::applyKeys);
+    world.add("timers", (now, delta) -> { timers.advance(now); return false; });
+    world.add("wave", this::updateWave);
+    world.add("shipMove", (now, delta) -> { bodies.moveShips(hShip.getPos().x, hShip.getPos().y, seconds(delta)); return false; });
+    world.add("flight", (now, delta) -> { TorpedoGroup.flyAll(this, now, delta); return false; });
+    world.add("steer", (now, delta) -> { bodies.steerShips(seconds(delta)); return false; });
+    world.add("torpMove", (now, delta) -> { bodies.moveTorps(hShip.getPos().x, hShip.getPos().y, seconds(delta)); return false; });
+    world.add("expire", (now, delta) -> { TorpedoGroup.expireAll(this); return false; });
+    world.add("collide", this::collide);
+    world.add("aim", (now, delta) -> { hShip.aim(TorpedoGroup.getFocused(tGroups, hShip.getPos()), delta); return false; });
+    world.add("pulses", (now, delta) -> { hShip.movePulses(view, now, delta); return false; });
   }
 
   /*
-   * Description: Initialises graphics.
-   * Parameters: (none)
+   * Description: Restarts the session from the first wave, reusing its objects. The
+   * simulation must not be running while the game is reset.
+   * Parameters: seed: Seed for all of the session's random numbers.
    * Return: (none)
    */
-  Game() {
-    initGraphics();
+  void reset(long seed) {
+    rng = new RandomSource(seed);
+    simTime = clock.now();
+    lastClockT = simTime;
+    acc = 0;
+    over = false;
+    winTime = -1;
+    winWaited = false;
+    waveCt = 0;
+    keys.clear();
+    timers.clear(simTime);
+
+    TorpedoGroup.releaseAll(this);
+    bodies.clear();
+    stat.reset();
+    hShip.reset();
+
+    phraseIt = phrases.iterator();
+    aWave = new AttackWave(this, new WavePlan(phraseIt.next(), rng.gameplay.split(), hShip.getPos(),
+        shipPool.available(), groups.available(), torpPool.available()), ++waveCt, simTime);
+    prefetchWave();
+    if (snapshots != null) publishSnapshot(); // Replace the last game's picture straight away.
   }
 
   /*
-   * Description: Starts a new game and rebuilds the main game panel.
+   * Description: Reads the master phrases from MasterPhrases.txt.
    * Parameters: (none)
-   * Return: (none)
+   * Return: List of phrases, one per line of the file.
    */
-  void startGame() {
-    appFrame.requestFocus();
-
-    waveCt = 0;
-
-    stat = new GameStat(this);
-    tGroups = new ConcurrentHashMap<>();
-    hShip = new HomeShip(new Pt2(0, 0), this);
-
+  static List<String> loadPhrases() {
     ArrayList<String> phrases = new ArrayList<>();
     // Each line is a phrase.
     try {
@@ -165,300 +148,245 @@ class Game implements KeyListener, ActionListener {
       }
       s.close();
     } catch (IOException ioe) {}
-
-    phraseIt = phrases.iterator();
-    aWave = new AttackWave(this, phraseIt.next(), ++waveCt);
-    battleView = new BattleView(new Pt2(2.0, 2.0), this);
-
-    appPanel.removeAll();
-    appPanel.setBackground(Color.DARK_GRAY);
-    GridBagConstraints gbc = new GridBagConstraints();
-
-    gbc.insets = new Insets(0, 0, 0, 0);
-    gbc.ipadx = 0;
-    gbc.ipady = 0;
-    gbc.weightx = 1;
-    gbc.weighty = 1;
-    gbc.fill = GridBagConstraints.NONE;
-    gbc.anchor = GridBagConstraints.SOUTH;
-    appPanel.add(battleView, gbc);
-    gbc.fill = GridBagConstraints.HORIZONTAL;
-    gbc.weightx = 1;
-    gbc.gridy = 1;
-    gbc.weighty = 1;
-    gbc.anchor = GridBagConstraints.SOUTH;
-    stat.setPreferredSize(new Dimension(0, GameStat.bottomBarHgt));
-    appPanel.add(stat, gbc);
-    setActivePanel(appPanel);
-    appFrame.revalidate();
-
-    // Set up the animation/update thread.
-    thread = new Thread(new Runnable() {
-      public void run() {
-        try {
-          while (true) {
-            appFrame.requestFocusInWindow();
-
-            // Update the current attack wave
-            if (aWave.update(battleView)) {
-              // Move onto the next wave if the current one was cleared
-              if (phraseIt.hasNext())
-                aWave = new AttackWave(hShip.getGame(), phraseIt.next(), ++waveCt); // "this" is apparently not a Game object
-              else if (winTime < 0) {
-                winTime = System.currentTimeMillis();
-              }
-              else if (System.currentTimeMillis() - winTime > winWaitTime) {
-                thread.interrupt();
-                stat.showSummary();
-              }
-            };
-            TorpedoGroup.moveFwd(tGroups, battleView);
-
-            TorpedoGroup p = TorpedoGroup.getFocused(tGroups, hShip.getPos());
-
-            hShip.moveFwd(battleView, p);
-
-            battleView.repaint();
-            stat.repaint();
-            Thread.sleep(1000 / 60);
-          }
-        } catch (InterruptedException ie) {
-        }
-      }
-    });
-    thread.start();
+    return phrases;
   }
 
   /*
-   * Description: Stops the current game and returns to the title screen.
+   * Description: Runs as many fixed simulation ticks as the clock calls for, but
+   * catches up by at most maxCatchUp ticks per call so a stall cannot snowball.
    * Parameters: (none)
-   * Return: (none)
+   * Return: Whether the game is over and the summary should be displayed.
    */
-  void quitGame() {
-    thread.interrupt();
-    setActivePanel(titlePanel);
+  boolean advance() {
+    return advance(maxCatchUp);
   }
 
-  public static void main(String[] args) {
-    new Game();
+  /*
+   * Description: Runs as many fixed simulation ticks as the clock calls for, up to a limit.
+   * Parameters: maxSteps: Max. number of ticks to run. Callers that run fewer frames per
+   *             second, eg in the background, pass a limit that covers a whole frame.
+   * Return: Whether the game is over and the summary should be displayed.
+   */
+  boolean advance(int maxSteps) {
+    long currT = clock.now(); // Read the clock once per frame.
+    acc += currT - lastClockT;
+    lastClockT = currT;
+    for (int i = 0; i < maxSteps && acc >= TICK_NS && !over; i++) {
+      acc -= TICK_NS;
+      simTime += TICK_NS;
+      over = step(simTime);
+    }
+    if (acc > TICK_NS) acc = TICK_NS; // Drop whatever could not be caught up.
+    if (snapshots != null) publishSnapshot();
+    return over;
   }
 
   /*
-   * Description: Handles button events from the title screen.
-   * Parameters: ae: ActionEvent containing the button's action command
+   * Description: Copies everything the BattleView draws into a render snapshot and publishes it.
+   * Parameters: (none)
    * Return: (none)
    */
-  public void actionPerformed (ActionEvent ae) {
-    String aStr = ae.getActionCommand();
-    // Start game
-    if (aStr.equals("start")) {
-      startGame();
-    }
-    // Exit program
-    else if (aStr.equals("exit")) {
-      System.exit(0);
-    }
-    // How to play
-    else if (aStr.equals("help")) {
-      // Try to bring up the browser to display the help document.
-      try {
-        File htmlFile = new File("BattleKeys.html");
-        Desktop.getDesktop().browse(htmlFile.toURI());
-      }
-      catch (IOException e) {
-        // Failed. Display some basic help info in a dialog.
-        JOptionPane.showMessageDialog(battleView,
-"""
-BATTLE KEYS: A space typing game...
-[Start]      : Start a New Game
-[Exit]       : Close the App
-[How to Play]:
-Destroy the enemy torpedo chains by typing
-out the text sequence accurately.
-Guess and type out the Master Phrase to
-wipe out the entire squadron in one go!
-
-See BattleKeys.html for more details...
-"""    ,
-          "Quick Help",
-          JOptionPane.INFORMATION_MESSAGE);
-      }
-    }
+  void publishSnapshot() {
+    RenderSnapshot s = snapshots.beginWrite();
+    s.simTime = simTime;
+    s.alpha = alpha();
+    s.renderTime = renderTime();
+    hShip.snapshot(s);
+    s.comboStr = stat.getComboStr().toString();
+    aWave.snapshot(s);
+    TorpedoGroup.snapshot(tGroups, s);
+    snapshots.publish();
   }
 
   /*
-   * Description: Handles keyboard events for the game.
-   * Parameters: e: Keyboard event
-   * Return: (none)
+   * Description: Returns the fraction of a tick elapsed since the latest simulation state.
+   * Parameters: (none)
+   * Return: Interpolation fraction between the last two simulation states, 0..1.
    */
-  public void keyPressed(KeyEvent e) {
-    if (hShip != null) hShip.pulse(e.getKeyChar());
+  double alpha() {
+    return (double) acc / TICK_NS;
   }
 
-  // Other unused methods required by KeyListener
-  public void keyReleased(KeyEvent e) {
+  /*
+   * Description: Returns the game time of the interpolated state between the last two ticks.
+   * Parameters: (none)
+   * Return: Render time, in ns.
+   */
+  long renderTime() {
+    return simTime - TICK_NS + acc;
   }
 
-  public void keyTyped(KeyEvent e) {
+  /*
+   * Description: Advances the simulation by one fixed time step of TICK_NS.
+   * Parameters: now: Game time, in ns, of this tick.
+   * Return: Whether the game is over and the summary should be displayed.
+   */
+  boolean step(long now) {
+    return world.tick(now, TICK_NS);
+  }
+
+  /*
+   * Description: Input system. Applies the keystrokes typed up to this tick, in the order
+   * they were typed.
+   * Parameters: now: Game time, in ns, of this tick.
+   *             delta: Simulation time step, in ns.
+   * Return: false.
+   */
+  private boolean applyKeys(long now, long delta) {
+    long keyT = now - delta;
+    while (keys.peekTime() <= now) {
+      keyT = Math.max(keyT, keys.peekTime()); // Never earlier than the previous tick or keystroke.
+      hShip.pulse(keys.poll(), keyT);
+    }
+    return false;
+  }
 
+  /*
+   * Description: Wave system. Updates the current attack wave, and moves on to the next
+   * one or to the win once it has been cleared.
+   * Parameters: now: Game time, in ns, of this tick.
+   *             delta: Simulation time step, in ns.
+   * Return: Whether the game is over and the summary should be displayed.
+   */
+  private boolean updateWave(long now, long delta) {
+    if (aWave.update(view, now)) {
+      // Move onto the next wave if the current one was cleared
+      if (nextWave != null) {
+        aWave = new AttackWave(this, nextWave.join(), ++waveCt, now); // Normally prepared long ago.
+        prefetchWave();
+      }
+      else if (winTime < 0) {
+        winTime = now;
+        timers.schedule(winTime + winWaitTime + 1, this, 0);
+      }
+      else if (winWaited) {
+        return true;
+      }
+    }
+    return false;
   }
-}
 
-class BattleView extends JPanel {
+  /*
+   * Description: Collision system. Indexes the bodies by position for this tick's queries
+   * and damages the home ship for every released torpedo that reaches it.
+   * Parameters: now: Game time, in ns, of this tick.
+   *             delta: Simulation time step, in ns.
+   * Return: false.
+   */
+  private boolean collide(long now, long delta) {
+    Pt2 hs = hShip.getPos();
+    grid.rebuild(bodies);
+    for (int hits = bodies.hitTorps(grid, hs.x, hs.y, HomeShip.getContactRad()); hits > 0; hits--)
+      hShip.causeDamage(now);
+    return false;
+  }
 
-  Pt2 cov; // Center of view, in BattleSpace units (BSUs)
-  Pt2 viewD; // Dimensions of the view area in BSUs
-  Pt2_i scrD; // Dimensions of the screen, in pixels
-  Game game; // Game pointer
+  /*
+   * Description: Converts a time step to seconds.
+   * Parameters: delta: Time step, in ns.
+   * Return: Time step, in seconds.
+   */
+  private static double seconds(long delta) {
+    return (double) delta / GameClock.SEC;
+  }
 
   /*
-   * Description: Creates a new BattleView.
-   * Parameters: dim: Dimensions of the view, in BattleSpace.
-   *             g: Reference to the game object.
+   * Description: Starts preparing the plan of the next wave while the current one plays.
+   * The random stream is split off and the pools are counted here, on the tick thread, so
+   * the plan does not depend on when the background thread runs, and it only makes the
+   * objects the pools cannot already supply.
+   * Parameters: (none)
    * Return: (none)
    */
-  BattleView(Pt2 dim, Game g) {
-    viewD = dim;
-    scrD = new Pt2_i(0, 0);
-    game = g;
-    cov = g.hShip.getPos();
+  private void prefetchWave() {
+    nextWave = phraseIt.hasNext() ? WavePlan.prefetch(phraseIt.next(), rng.gameplay.split(), hShip.getPos(),
+        shipPool.available(), groups.available(), torpPool.available()) : null;
   }
 
   /*
-   * Description: Converts coordinates from BattleSpace to screen pixels.
-   * Parameters: bsPt: Point in BattleSpace.
-   * Return: Point in screen pixels.
+   * Description: Types a character at the current simulation time. Only called by
+   * the thread that runs the simulation.
+   * Parameters: ch: Character typed.
+   * Return: Whether the keystroke was queued.
    */
-  Pt2_i toScrPt(Pt2 bsPt) {
-    Pt2 out = new Pt2((bsPt.x - cov.x + viewD.x / 2) / viewD.x * scrD.x,
-        (1.0 - (bsPt.y - cov.y + viewD.y / 2) / viewD.y) * scrD.y);
-    return new Pt2_i(out);
+  boolean type(char ch) {
+    return keys.offer(ch, simTime);
   }
 
   /*
-   * Description: Scales a dimension in BattleSpace to a dimension in screen pixels.
-   * Parameters: bsDim: A dimension in BattleSpace.
-   * Return: Dimension in screen pixels.
+   * Description: Types a character at the given game time. The pulse is fired by the
+   * first simulation tick at or after that time. Only called by one producer thread.
+   * Parameters: ch: Character typed.
+   *             t: Game time, in ns, of the keystroke.
+   * Return: Whether the keystroke was queued; false if too many keystrokes are waiting.
    */
-  Pt2_i scale(Pt2 bsDim) {
-    return new Pt2_i(bsDim.x / viewD.x * scrD.x, bsDim.y / viewD.y * scrD.y);
+  boolean type(char ch, long t) {
+    return keys.offer(ch, t);
   }
 
   /*
-   * Description: Returns the current scale factor from BattleSpace to screen display.
+   * Description: Checks whether the home ship has been destroyed and the game over
+   * animation has finished.
    * Parameters: (none)
-   * Return: Current scale factor in a Pt2.
+   * Return: Whether the game has been lost.
    */
-  Pt2 getScaleFac() {
-    return new Pt2(scrD.x/viewD.x, scrD.y/viewD.y);
+  boolean isLost() {
+    return hShip.shipStatus() == 0;
   }
 
   /*
-   * Description: Checks whether the given BattleSpace coordinate is in the view area.
-   * Parameters: bsPt: BattleSpace coordinate to check.
-   * Return: Whether the coordinate is in view.
+   * Description: Marks winWaitTime as passed since the win.
+   * Parameters: kind: Unused; the game only has one timer.
+   *             now: Current game time, in ns.
+   * Return: (none)
    */
-  boolean inView(Pt2 bsPt) {
-    return bsPt.x < cov.x + viewD.x / 2
-        && bsPt.x > cov.x - viewD.x / 2
-        && bsPt.y < cov.y + viewD.y / 2
-        && bsPt.y > cov.y - viewD.y / 2;
+  public void onTimer(int kind, long now) {
+    winWaited = true;
   }
 
-  // If this does not match the current screen dimensions, the resize event methods are called.
-  Pt2_i lastScrD = new Pt2_i(0, 0);
-
   /*
-   * Description: Redraws everything on the game display.
-   * Parameters: _g: Graphics element to draw with.
+   * Description: Starts the game. An optional seed argument replays the same waves.
+   * Parameters: args: Command line arguments: [seed]
    * Return: (none)
    */
-  public void paintComponent(Graphics _g) {
-    Graphics2D g = (Graphics2D) _g.create();
-
-    int pWidth = getParent().getWidth();
-    int pHeight = getParent().getHeight();
-    int scrSz = (int)(Math.min(pWidth, pHeight - GameStat.bottomBarHgt)*0.9);
-    // If the screen dimensions have changed, call the resize handlers.
-    if (!lastScrD.equals(new Pt2_i(pWidth, pHeight))) {
-      scrD.x = scrSz;
-      scrD.y = scrSz;
-      lastScrD = new Pt2_i(pWidth, pHeight);
-      setPreferredSize(new Dimension(scrSz, scrSz));
-      revalidate();
-      game.aWave.onResize(this);
-      game.hShip.onResize(this);
-      TxTorpedo.onResize(this);
-    }
-
-    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-    g.setBackground(Color.BLACK);
-    g.clearRect(0, 0, pWidth, pHeight);
-    game.hShip.draw(this, g);
-    game.aWave.draw(this, g);
-
-    // Draw every torpedo group.
-    synchronized (game.tGroups) {
-      for (List<TorpedoGroup> tgs : game.tGroups.values()) {
-        synchronized (tgs) {
-          for (TorpedoGroup tg : tgs)
-            tg.draw(this, g);
-        }
-      }
-    }
-    game.stat.draw(this, g);
+  public static void main(String[] args) {
+    new GameUI(args.length > 0 ? Long.valueOf(args[0]) : null);
   }
+}
 
-  static final Font dbgFont = new Font("Arial", Font.PLAIN, 10);
+class Viewport {
+  Pt2 cov; // Center of view, in BattleSpace units (BSUs)
+  Pt2 viewD; // Dimensions of the view area in BSUs
 
   /*
-   * Description: Draws a BattleSpace point labelled with its coordinate.
-   * Parameters: bsCoord: Coordinate in BattleSpace
-   *             g: Graphics object to draw onto.
-   *             c: Colour to draw with.
+   * Description: Creates a new Viewport.
+   * Parameters: center: Center of the view, in BattleSpace.
+   *             dim: Dimensions of the view, in BattleSpace.
    * Return: (none)
    */
-  void dbgPt(Pt2 bsCoord, Graphics g, Color c) {
-    dbgStr(bsCoord.toString(), bsCoord, g, c);
+  Viewport(Pt2 center, Pt2 dim) {
+    cov = center;
+    viewD = dim;
   }
 
   /*
-   * Description: Draws a string.
-   * Parameters: s: String to draw.
-   *             bsCoord: Coordinate, in BattleSpace, to draw the string.
-   *             _g: Graphics object to draw onto.
-   *             c: Colour to draw with.
-   * Return: (none)
+   * Description: Checks whether the given BattleSpace coordinate is in the view area.
+   * Parameters: bsPt: BattleSpace coordinate to check.
+   * Return: Whether the coordinate is in view.
    */
-  void dbgStr(String s, Pt2 bsCoord, Graphics _g, Color c) {
-    Graphics2D g = (Graphics2D) _g;
-    Color prevC = g.getColor();
-    Font prevF = g.getFont();
-    Stroke prevS = g.getStroke();
-
-    g.setStroke(new BasicStroke(1));
-    g.setFont(dbgFont);
-    g.setColor(c);
-    Pt2_i scrCoord = toScrPt(bsCoord);
-    int x = scrCoord.x;
-    int y = scrCoord.y;
-    g.drawLine(x - 3, y - 3, x + 3, y + 3);
-    g.drawLine(x + 3, y - 3, x - 3, y + 3);
-    g.drawString(s, scrCoord.x, scrCoord.y);
-
-    g.setFont(prevF);
-    g.setColor(prevC);
-    g.setStroke(prevS);
+  boolean inView(Pt2 bsPt) {
+    return inView(bsPt.x, bsPt.y);
   }
 
   /*
-   * Description: Draws a point using the default colour (white).
-   * Parameters: bsCoord: Coordinate, in BattleSpace, to draw at.
-   *             g: Graphics object to draw onto.
-   * Return: (none)
+   * Description: Checks whether the given BattleSpace coordinate is in the view area.
+   * Parameters: x, y: BattleSpace coordinate to check.
+   * Return: Whether the coordinate is in view.
    */
-  void dbgPt(Pt2 bsCoord, Graphics g) {
-    dbgPt(bsCoord, g, Color.WHITE);
+  boolean inView(double x, double y) {
+    return x < cov.x + viewD.x / 2
+        && x > cov.x - viewD.x / 2
+        && y < cov.y + viewD.y / 2
+        && y > cov.y - viewD.y / 2;
   }
-
-}
\ No newline at end of file
+}
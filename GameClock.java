@@ -0,0 +1,119 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: GameClock class.
+// A monotonic, nanosecond-resolution source of game time. The clock can be paused
+// and scaled, and a virtual clock only moves when it is advanced explicitly, which
+// lets headless runs simulate hours of gameplay in seconds.
+
+class GameClock {
+  static final long MS = 1000000; // Nanoseconds per millisecond.
+  static final long SEC = 1000 * MS; // Nanoseconds per second.
+
+  private final boolean virtual; // Whether the clock is driven by advance() rather than System.nanoTime().
+  private long srcBase;          // Source reading at the last rebase, in ns.
+  private long gameBase;         // Game time at the last rebase, in ns.
+  private double scale = 1.0;    // Game time elapsed per unit of source time.
+  private boolean paused = false;
+  private long virtualNow = 0;   // Source reading of a virtual clock, in ns.
+
+  /*
+   * Description: Creates a new GameClock starting at game time 0.
+   * Parameters: virtual: Whether the clock only moves when advance() is called.
+   * Return: (none)
+   */
+  GameClock(boolean virtual) {
+    this.virtual = virtual;
+    srcBase = source();
+    gameBase = 0;
+  }
+
+  /*
+   * Description: Returns the current reading of the underlying time source.
+   * Parameters: (none)
+   * Return: Source time, in ns.
+   */
+  private long source() {
+    return virtual ? virtualNow : System.nanoTime();
+  }
+
+  /*
+   * Description: Returns the current game time. Never decreases.
+   * Parameters: (none)
+   * Return: Game time, in ns.
+   */
+  synchronized long now() {
+    if (paused) return gameBase;
+    long elapsed = source() - srcBase;
+    return gameBase + (scale == 1.0 ? elapsed : (long) (elapsed * scale));
+  }
+
+  /*
+   * Description: Restarts the elapsed time measurement from the current game time,
+   * so that a change of scale or pause state does not affect time already elapsed.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  private void rebase() {
+    gameBase = now();
+    srcBase = source();
+  }
+
+  /*
+   * Description: Pauses or resumes the clock.
+   * Parameters: p: Whether the clock should be paused.
+   * Return: (none)
+   */
+  synchronized void setPaused(boolean p) {
+    if (p == paused) return;
+    rebase();
+    paused = p;
+  }
+
+  /*
+   * Description: Checks whether the clock is paused.
+   * Parameters: (none)
+   * Return: Whether the clock is paused.
+   */
+  synchronized boolean isPaused() {
+    return paused;
+  }
+
+  /*
+   * Description: Sets the rate of game time relative to the time source.
+   * Parameters: s: Scale factor, eg 2.0 runs the game at double speed.
+   * Return: (none)
+   */
+  synchronized void setScale(double s) {
+    if (s < 0) throw new IllegalArgumentException("Negative time scale: " + s);
+    rebase();
+    scale = s;
+  }
+
+  /*
+   * Description: Returns the rate of game time relative to the time source.
+   * Parameters: (none)
+   * Return: Scale factor.
+   */
+  synchronized double getScale() {
+    return scale;
+  }
+
+  /*
+   * Description: Moves a virtual clock forward.
+   * Parameters: ns: Source time to advance by, in ns.
+   * Return: (none)
+   */
+  synchronized void advance(long ns) {
+    if (!virtual) throw new IllegalStateException("Only a virtual clock can be advanced.");
+    if (ns > 0) virtualNow += ns;
+  }
+
+  /*
+   * Description: Checks whether the clock only moves when advanced.
+   * Parameters: (none)
+   * Return: Whether the clock is virtual.
+   */
+  boolean isVirtual() {
+    return virtual;
+  }
+}
@@ -0,0 +1,726 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: GameUI, BattleView and StatBar classes: the Swing front end of a Game.
+
+import java.util.*;
+import java.util.List;
+import java.io.*;
+import javax.swing.*;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.geom.*;
+
+class GameUI implements KeyListener, ActionListener {
+  JFrame appFrame; // Main app display frame
+  JPanel appPanel; // Gameplay panel
+  JPanel titlePanel; // Title screen panel
+  JPanel summaryPanel; // Post-game summary panel
+
+  String helpTxt; // Help text, HTML-formatted.
+
+  Game game; // Current game session.
+  BattleView battleView;
+  StatBar statBar; // Statistics bottom panel
+  Thread thread; // Game animation thread
+  // Frame rates while the window has focus and while it is in the background; 0 for uncapped.
+  static final int fgFps = Integer.getInteger("battlekeys.fps", 60);
+  static final int bgFps = Integer.getInteger("battlekeys.bgfps", 10);
+  FramePacer pacer = new FramePacer(fgFps); // Render loop pacing.
+  Long seed; // Seed for every game, or null for a new random seed per game.
+  List<String> phrases; // Master phrases, read once.
+
+  JPanel activePanel = null;
+  /*
+   * Description: Sets the active (displayed) panel to the given panel.
+   * Parameters: p: Panel to display.
+   * Return: (none)
+   */
+  void setActivePanel(JPanel p) {
+    if (activePanel != null) activePanel.setVisible(false);
+    activePanel = p;
+    p.setVisible(true);
+  }
+
+  /*
+   * Desciption: Initialises the main JFrame, title and game panels
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void initGraphics() {
+
+    appFrame = new JFrame("Battle Keys");
+    appFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    appFrame.setFocusable(true);
+    appFrame.addKeyListener(this);
+    // Throttle the game in the background, and take the keyboard focus back when the
+    // window is activated again, rather than requesting it on every frame.
+    appFrame.addWindowFocusListener(new WindowAdapter() {
+      public void windowGainedFocus(WindowEvent e) {
+        pacer.setRate(fgFps);
+        appFrame.requestFocusInWindow();
+      }
+
+      public void windowLostFocus(WindowEvent e) {
+        pacer.setRate(bgFps);
+      }
+    });
+
+    JPanel globalCtn = new JPanel(new CardLayout());
+    JScrollPane jsp = new JScrollPane(globalCtn);
+    appFrame.add(jsp);
+
+    titlePanel = new JPanel(new GridBagLayout());
+    titlePanel.setBackground(Color.BLACK);
+    GridBagConstraints tgbc = new GridBagConstraints();
+    // tgbc.ipady = 50;
+    tgbc.insets = new Insets(25, 0, 25, 0);
+
+    globalCtn.add(titlePanel);
+
+
+    // BufferedImage bi = ImageIO.read(new File("./es.png"));
+    // JLabel name = new JLabel(new ImageIcon("./es.png"));
+    JLabel name = new JLabel("BaTtLe KeYs");
+    name.setFont(Fonts.titleFont.deriveFont(100f) ); //new Font("Courier New", Font.PLAIN, 50));
+    // name.setFont(btnFont.deriveFont(100f) ); //new Font("Courier New", Font.PLAIN, 50));
+    name.setForeground(new Color(0xffd700)); //Color(60,60,180));
+    tgbc.gridy++;
+    titlePanel.add(name, tgbc);
+    JButton btn = new JButton("Start");
+    btn.setFont(Fonts.btnFont.deriveFont(30f)); //new Font("Courier New", Font.PLAIN, 30));
+    btn.setPreferredSize(new Dimension(240,40));
+    btn.addActionListener(this);
+    btn.setActionCommand("start");
+    tgbc.gridy++;
+    titlePanel.add(btn, tgbc);
+
+    btn = new JButton("How to Play");
+    btn.setFont(Fonts.btnFont.deriveFont(30f)); //new Font("Courier New", Font.PLAIN, 30));
+    btn.setPreferredSize(new Dimension(240,40));
+    btn.addActionListener(this);
+    btn.setActionCommand("help");
+    tgbc.gridy++;
+    titlePanel.add(btn, tgbc);
+
+    btn = new JButton("Exit");
+    btn.setFont(Fonts.btnFont.deriveFont(30f)); //new Font("Courier New", Font.PLAIN, 30));
+    btn.setPreferredSize(new Dimension(240,40));
+    btn.addActionListener(this);
+    btn.setActionCommand("exit");
+    tgbc.gridy++;
+    titlePanel.add(btn, tgbc);
+
+    globalCtn.add(titlePanel);
+    titlePanel.setVisible(true);
+    activePanel = titlePanel;
+
+    summaryPanel = new JPanel(new GridBagLayout());
+
+
+    globalCtn.add(summaryPanel);
+    summaryPanel.setVisible(false);
+
+
+    appPanel = new JPanel(new GridBagLayout());
+    globalCtn.add(appPanel);
+    appPanel.setVisible(false);
+
+
+    appFrame.setMinimumSize(new Dimension(800, 700));
+    appFrame.setPreferredSize(new Dimension(700, 800));
+    appFrame.pack();
+    appFrame.setVisible(true);
+  }
+
+  /*
+   * Description: Initialises graphics.
+   * Parameters: s: Seed for every game, or null for a new random seed per game.
+   * Return: (none)
+   */
+  GameUI(Long s) {
+    seed = s;
+    initGraphics();
+  }
+
+  /*
+   * Description: Starts a new game. The game session and the game panel are created by
+   * the first game and reset by the following ones.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void startGame() {
+    appFrame.requestFocus();
+    stopGame();
+
+    long s = seed != null ? seed : System.nanoTime();
+    if (game == null) {
+      phrases = Game.loadPhrases();
+      game = new Game(new GameClock(false), phrases);
+      buildGamePanel();
+      game.reset(s); // Start the first game now that the panel is built.
+    }
+    else {
+      game.reset(s);
+      statBar.reset();
+      battleView.repaint();
+    }
+    setActivePanel(appPanel);
+
+    // Set up the animation/update thread.
+    thread = new Thread(new Runnable() {
+      public void run() {
+        try {
+          while (true) {
+            // Let a slow background frame run all the ticks it covers, so the game keeps its speed.
+            int maxSteps = Math.max(Game.maxCatchUp, (int) (pacer.getPeriod() / Game.TICK_NS) + 1);
+            if (game.advance(maxSteps)) {
+              SwingUtilities.invokeLater(statBar::showSummary);
+              return;
+            }
+
+            battleView.repaint();
+            statBar.updateDisplays();
+            // Once the game over animation has finished, nothing changes any more. Swing
+            // repaints the last snapshot whenever the view needs it.
+            if (game.isLost()) return;
+            pacer.await();
+          }
+        } catch (InterruptedException ie) {
+        }
+        finally {
+          if (Boolean.getBoolean("battlekeys.debug")) G.sysprtf("Frame pacer: %s\n", pacer);
+        }
+      }
+    });
+    pacer.restart();
+    thread.start();
+  }
+
+  /*
+   * Description: Builds the main game panel: the BattleView above the StatBar.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void buildGamePanel() {
+    statBar = new StatBar(this);
+    battleView = new BattleView(game);
+
+    appPanel.removeAll();
+    appPanel.setBackground(Color.DARK_GRAY);
+    GridBagConstraints gbc = new GridBagConstraints();
+
+    gbc.insets = new Insets(0, 0, 0, 0);
+    gbc.ipadx = 0;
+    gbc.ipady = 0;
+    gbc.weightx = 1;
+    gbc.weighty = 1;
+    gbc.fill = GridBagConstraints.NONE;
+    gbc.anchor = GridBagConstraints.SOUTH;
+    appPanel.add(battleView, gbc);
+    gbc.fill = GridBagConstraints.HORIZONTAL;
+    gbc.weightx = 1;
+    gbc.gridy = 1;
+    gbc.weighty = 1;
+    gbc.anchor = GridBagConstraints.SOUTH;
+    statBar.setPreferredSize(new Dimension(0, StatBar.bottomBarHgt));
+    appPanel.add(statBar, gbc);
+    appFrame.revalidate();
+  }
+
+  /*
+   * Description: Stops the game thread, if one is running, and waits for it to finish,
+   * so that no old game loop runs alongside the next one.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void stopGame() {
+    if (thread == null) return;
+    thread.interrupt();
+    boolean interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException ie) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) Thread.currentThread().interrupt();
+    thread = null;
+  }
+
+  /*
+   * Description: Stops the current game and returns to the title screen.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void quitGame() {
+    stopGame();
+    setActivePanel(titlePanel);
+  }
+
+  /*
+   * Description: Handles button events from the title screen.
+   * Parameters: ae: ActionEvent containing the button's action command
+   * Return: (none)
+   */
+  public void actionPerformed (ActionEvent ae) {
+    String aStr = ae.getActionCommand();
+    // Start game
+    if (aStr.equals("start")) {
+      startGame();
+    }
+    // Exit program
+    else if (aStr.equals("exit")) {
+      System.exit(0);
+    }
+    // How to play
+    else if (aStr.equals("help")) {
+      // Try to bring up the browser to display the help document.
+      try {
+        File htmlFile = new File("BattleKeys.html");
+        Desktop.getDesktop().browse(htmlFile.toURI());
+      }
+      catch (IOException e) {
+        // Failed. Display some basic help info in a dialog.
+        JOptionPane.showMessageDialog(battleView,
+"""
+BATTLE KEYS: A space typing game...
+[Start]      : Start a New Game
+[Exit]       : Close the App
+[How to Play]:
+Destroy the enemy torpedo chains by typing
+out the text sequence accurately.
+Guess and type out the Master Phrase to
+wipe out the entire squadron in one go!
+
+See BattleKeys.html for more details...
+"""    ,
+          "Quick Help",
+          JOptionPane.INFORMATION_MESSAGE);
+      }
+    }
+  }
+
+  /*
+   * Description: Handles keyboard events for the game.
+   * Parameters: e: Keyboard event
+   * Return: (none)
+   */
+  public void keyPressed(KeyEvent e) {
+    if (game == null) return;
+    // Stamp the keystroke with the game time it was typed, allowing for the time the
+    // event spent waiting in the event queue.
+    long lag = Math.min(Math.max(System.currentTimeMillis() - e.getWhen(), 0) * GameClock.MS, Game.maxKeyLag);
+    game.type(e.getKeyChar(), game.clock.now() - lag);
+  }
+
+  // Other unused methods required by KeyListener
+  public void keyReleased(KeyEvent e) {
+  }
+
+  public void keyTyped(KeyEvent e) {
+
+  }
+}
+
+class BattleView extends JPanel {
+
+  Viewport vp; // The game's view area, in BattleSpace units (BSUs)
+  Pt2_i scrD; // Dimensions of the screen, in pixels
+  Game game; // Game pointer
+  SnapshotExchange snapshots = new SnapshotExchange(); // Render snapshots published by the game.
+
+  // Render sizes and fonts, updated when the screen is resized.
+  Pt2_i hsSz = new Pt2_i(0, 0); // Size of the home ship, in pixels.
+  Pt2_i esSz = new Pt2_i(0, 0); // Size of an enemy ship, in pixels.
+  Font torpFont = new Font("Courier New", Font.BOLD, 15); // Font of the text torpedoes.
+  Font bannerFont; // Font of the wave number and game over messages.
+  Font healthFont; // Font of the home ship health display.
+
+  /*
+   * Description: Creates a new BattleView.
+   * Parameters: g: Reference to the game object.
+   * Return: (none)
+   */
+  BattleView(Game g) {
+    scrD = new Pt2_i(0, 0);
+    game = g;
+    vp = g.view;
+    g.snapshots = snapshots;
+    bannerFont = Fonts.titleFont.deriveFont(80f);
+    healthFont = Fonts.circFont.deriveFont(15f);
+  }
+
+  /*
+   * Description: Converts coordinates from BattleSpace to screen pixels.
+   * Parameters: bsPt: Point in BattleSpace.
+   * Return: Point in screen pixels.
+   */
+  Pt2_i toScrPt(Pt2 bsPt) {
+    Pt2 cov = vp.cov, viewD = vp.viewD;
+    Pt2 out = new Pt2((bsPt.x - cov.x + viewD.x / 2) / viewD.x * scrD.x,
+        (1.0 - (bsPt.y - cov.y + viewD.y / 2) / viewD.y) * scrD.y);
+    return new Pt2_i(out);
+  }
+
+  /*
+   * Description: Scales a dimension in BattleSpace to a dimension in screen pixels.
+   * Parameters: bsDim: A dimension in BattleSpace.
+   * Return: Dimension in screen pixels.
+   */
+  Pt2_i scale(Pt2 bsDim) {
+    return new Pt2_i(bsDim.x / vp.viewD.x * scrD.x, bsDim.y / vp.viewD.y * scrD.y);
+  }
+
+  /*
+   * Description: Returns the current scale factor from BattleSpace to screen display.
+   * Parameters: (none)
+   * Return: Current scale factor in a Pt2.
+   */
+  Pt2 getScaleFac() {
+    return new Pt2(scrD.x/vp.viewD.x, scrD.y/vp.viewD.y);
+  }
+
+  // If this does not match the current screen dimensions, the resize event methods are called.
+  Pt2_i lastScrD = new Pt2_i(0, 0);
+
+  /*
+   * Description: Redraws everything on the game display.
+   * Parameters: _g: Graphics element to draw with.
+   * Return: (none)
+   */
+  public void paintComponent(Graphics _g) {
+    Graphics2D g = (Graphics2D) _g.create();
+
+    int pWidth = getParent().getWidth();
+    int pHeight = getParent().getHeight();
+    int scrSz = (int)(Math.min(pWidth, pHeight - StatBar.bottomBarHgt)*0.9);
+    // If the screen dimensions have changed, call the resize handlers.
+    if (!lastScrD.equals(new Pt2_i(pWidth, pHeight))) {
+      scrD.x = scrSz;
+      scrD.y = scrSz;
+      lastScrD = new Pt2_i(pWidth, pHeight);
+      setPreferredSize(new Dimension(scrSz, scrSz));
+      revalidate();
+      onResize();
+    }
+
+    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    g.setBackground(Color.BLACK);
+    g.clearRect(0, 0, pWidth, pHeight);
+    // Draw the latest snapshot published by the game, between its last two simulation states.
+    RenderSnapshot s = snapshots.latest();
+    if (s.seq == 0) return; // Nothing published yet.
+    HomeShip.draw(this, g, s);
+    AttackWave.draw(this, g, s);
+    for (int i=0; i<s.shipCt; i++)
+      EnemyShip.draw(this, g, s, i);
+    for (int i=0; i<s.torpCt; i++)
+      TxTorpedo.draw(this, g, s, i);
+    drawStats(g, s);
+  }
+
+  /*
+   * Description: Updates the render sizes and fonts for the current screen dimensions.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void onResize() {
+    hsSz = scale(HomeShip.bsSz);
+    esSz = scale(EnemyShip.bsSz);
+    torpFont = new Font("Courier New", Font.BOLD, scale(new Pt2(0.06, 0)).x);
+  }
+
+  /*
+   * Description: Draws the active pulse sequence and the current combo onto the view.
+   * Parameters: g: Graphics object to draw onto.
+   *             s: Snapshot to draw from.
+   * Return: (none)
+   */
+  void drawStats(Graphics2D g, RenderSnapshot s) {
+    String pulseStr = s.pulseStr;
+    String comboStr = s.comboStr;
+    g.setFont(Fonts.pulseFont.deriveFont(30f));
+    FontMetrics fm = g.getFontMetrics(g.getFont());
+    Rectangle2D bounds = fm.getStringBounds(pulseStr, g);
+    // g.setColor(Color.WHITE);
+    g.setColor(new Color(0xaa,0xaa,0xff));
+
+    int padding = 10;
+    int left = bounds.getWidth()>scrD.x-2*padding ? -(int)(bounds.getWidth() - scrD.x + padding) : padding;
+    g.drawString(pulseStr, left, 50);
+
+    g.setFont(Fonts.comboFont.deriveFont(30f));
+    g.setColor(new Color(0xffd700));
+    String dispStr = comboStr;
+    // Trim the string if it is too long.
+    fm = g.getFontMetrics(g.getFont());
+    bounds = fm.getStringBounds(dispStr, g);
+    left = bounds.getWidth()>scrD.x-2*padding ? -(int)(bounds.getWidth() - scrD.x + padding) : padding;
+    // if (comboStr.length() > 30) dispStr = dispStr.substring(comboStr.length()-30);
+    g.drawString(dispStr, left, scrD.y - padding);
+  }
+
+  static final Font dbgFont = new Font("Arial", Font.PLAIN, 10);
+
+  /*
+   * Description: Draws a BattleSpace point labelled with its coordinate.
+   * Parameters: bsCoord: Coordinate in BattleSpace
+   *             g: Graphics object to draw onto.
+   *             c: Colour to draw with.
+   * Return: (none)
+   */
+  void dbgPt(Pt2 bsCoord, Graphics g, Color c) {
+    dbgStr(bsCoord.toString(), bsCoord, g, c);
+  }
+
+  /*
+   * Description: Draws a string.
+   * Parameters: s: String to draw.
+   *             bsCoord: Coordinate, in BattleSpace, to draw the string.
+   *             _g: Graphics object to draw onto.
+   *             c: Colour to draw with.
+   * Return: (none)
+   */
+  void dbgStr(String s, Pt2 bsCoord, Graphics _g, Color c) {
+    Graphics2D g = (Graphics2D) _g;
+    Color prevC = g.getColor();
+    Font prevF = g.getFont();
+    Stroke prevS = g.getStroke();
+
+    g.setStroke(new BasicStroke(1));
+    g.setFont(dbgFont);
+    g.setColor(c);
+    Pt2_i scrCoord = toScrPt(bsCoord);
+    int x = scrCoord.x;
+    int y = scrCoord.y;
+    g.drawLine(x - 3, y - 3, x + 3, y + 3);
+    g.drawLine(x + 3, y - 3, x - 3, y + 3);
+    g.drawString(s, scrCoord.x, scrCoord.y);
+
+    g.setFont(prevF);
+    g.setColor(prevC);
+    g.setStroke(prevS);
+  }
+
+  /*
+   * Description: Draws a point using the default colour (white).
+   * Parameters: bsCoord: Coordinate, in BattleSpace, to draw at.
+   *             g: Graphics object to draw onto.
+   * Return: (none)
+   */
+  void dbgPt(Pt2 bsCoord, Graphics g) {
+    dbgPt(bsCoord, g, Color.WHITE);
+  }
+
+}
+
+class StatBar extends JPanel implements ActionListener {
+  final static int bottomBarHgt = 50; // Height of the bottom statistics bar, in pixels.
+
+  private JLabel pointsL; // JLabel for number of points for the bottom bar.
+  private int shownPts = 0; // Number of points currently displayed by pointsL.
+
+  GameUI ui;
+
+  Font labelFont = new Font("Arial", Font.PLAIN, 17);
+  Font btnFont = new Font("Arial", Font.PLAIN, 17);
+  Font valueFont = new Font("Arial", Font.BOLD, 20);
+
+  /*
+   * Description: sets up the graphics for the bottom statistics panel in the game screen.
+   * Parameters: u: Reference to the game UI.
+   * Return: (none).
+   */
+  StatBar(GameUI u) {
+    ui = u;
+
+    setBackground(Color.WHITE);
+
+    JPanel ptsPanel = new JPanel();
+      ptsPanel.setBackground(Color.WHITE);
+      pointsL = new JLabel("0");
+      pointsL.setFont(Fonts.LCDFont.deriveFont(Font.BOLD, 24f));
+      ptsPanel.add(pointsL);
+      JLabel lab_p = new JLabel("Pts");
+      lab_p.setFont(Fonts.typoFont.deriveFont(Font.BOLD, 24f));
+      ptsPanel.add(lab_p);
+    add(ptsPanel);
+
+    JButton stopBtn = new JButton("Quit");
+      // stopBtn.setFont(btnFont);
+      stopBtn.setFont(Fonts.btnFont.deriveFont(22f));
+      stopBtn.setPreferredSize(new Dimension(110,40));
+      stopBtn.addActionListener(this);
+      stopBtn.setActionCommand("quit");
+      stopBtn.setFocusable(false); // Keep the keyboard focus on the game.
+    add(stopBtn);
+
+    JButton restartBtn = new JButton("Restart");
+      restartBtn.setMargin(new Insets(0, 0, 0, 0));
+      restartBtn.setFont(Fonts.btnFont.deriveFont(22f));
+      restartBtn.setPreferredSize(new Dimension(110,40));
+      restartBtn.addActionListener(this);
+      restartBtn.setActionCommand("restart");
+      restartBtn.setFocusable(false);
+    add(restartBtn);
+  }
+
+  /*
+   * Description: Action handler for button events.
+   * Parameters: ae: Action event containing action command.
+   * Return: (none)
+   */
+  public void actionPerformed(ActionEvent ae) {
+    String aStr = ae.getActionCommand();
+    // Restart in place: startGame() stops the running game and resets it.
+    if (aStr.equals("restart")) {
+      ui.startGame();
+    }
+    else if (aStr.equals("quit")) { // Return to main menu.
+      ui.quitGame();
+    }
+    else { // Unknown action command.
+      G.sysprtf("Invalid action command.\n");
+    }
+  }
+
+  /*
+   * Description: Clears the displays for a restarted game.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void reset() {
+    shownPts = 0;
+    // Queued behind any update the old game thread posted before it stopped.
+    SwingUtilities.invokeLater(() -> pointsL.setText("0"));
+  }
+
+  /*
+   * Description: Rebuilds and updates the post-game summary JPanel.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void showSummary() {
+    JPanel sPanel = ui.summaryPanel;
+    GameStat stat = ui.game.stat;
+    sPanel.setBackground(new Color(0xffd700));
+    sPanel.removeAll();
+    sPanel.setLayout(new BorderLayout());
+    JPanel ctnPanel = new JPanel(new GridBagLayout()); // for aligning to top.
+    ctnPanel.setBackground(sPanel.getBackground());
+    sPanel.add(ctnPanel, BorderLayout.NORTH);
+
+    GridBagConstraints gbc = new GridBagConstraints();
+    ctnPanel.setVisible(true);
+    gbc.gridwidth = 2;
+    gbc.gridy = 0;
+    gbc.gridx = 0;
+    gbc.fill = GridBagConstraints.NONE;
+    gbc.ipady = 30;
+    JLabel title = new JLabel("YoU wIn");
+    title.setFont(Fonts.titleFont.deriveFont(80f));
+    ctnPanel.add(title, gbc);
+
+
+    gbc.ipady = 30;
+    gbc.gridwidth = 1;
+    gbc.gridy++;
+    JLabel sText = new JLabel("Score:");
+    sText.setFont(Fonts.typoFont.deriveFont(Font.BOLD, 24f));
+    ctnPanel.add(sText, gbc);
+
+    gbc.gridx = 1;
+
+    JLabel sVal = new JLabel(""+stat.pts);
+    sVal.setFont(Fonts.typoFont.deriveFont(Font.BOLD, 24f));
+    ctnPanel.add(sVal, gbc);
+
+    gbc.gridx = 0;
+
+    gbc.gridy++;
+    gbc.gridx = 0;
+    gbc.gridwidth = 2;
+    JLabel mostCommonTtl = new JLabel("Most common torpedoes destroyed:");
+    mostCommonTtl.setFont(Fonts.typoFont.deriveFont(Font.BOLD, 24f));
+    ctnPanel.add(mostCommonTtl, gbc);
+    gbc.gridwidth = 1;
+    gbc.ipady = 0;
+    // Words by frequency, already kept in order.
+    List<FreqData> mostCommon = stat.seenWords.top(20);
+
+    gbc.gridwidth = 1;
+    // Display the 20 most common torpedo types destroyed.
+    for (int i=0; i<mostCommon.size(); i++) {
+      gbc.gridx = 0;
+      gbc.gridy++;
+      FreqData wd = mostCommon.get(i);
+      // Past TopWords.CAPACITY different words, a count is only known to within its error.
+      String ctStr = wd.err == 0 ? String.format("%dx", wd.ct) : String.format("%d-%dx", wd.ct - wd.err, wd.ct);
+      JLabel hdrLabel = new JLabel(String.format("#%d. %s",i+1, ctStr));
+      hdrLabel.setFont(Fonts.typoFont.deriveFont(Font.BOLD, 20f));
+
+      ctnPanel.add(hdrLabel, gbc);
+      gbc.gridx = 1;
+      JLabel wLabel = new JLabel(wd.w);
+      wLabel.setFont(Fonts.typoFont.deriveFont(Font.BOLD, 20f));
+      ctnPanel.add(wLabel, gbc);
+    }
+
+    gbc.ipady = 30;
+    gbc.gridy++;
+    gbc.gridx = 0;
+    gbc.gridwidth = 2;
+    JLabel comboTitleLab = new JLabel("Longest combo sequences:");
+    comboTitleLab.setFont(Fonts.typoFont.deriveFont(Font.BOLD, 24f));
+    ctnPanel.add(comboTitleLab, gbc);
+
+    gbc.ipady = 0;
+    // Display the best combo string per wave.
+    List<String> bestCombo = stat.getBestCombo();
+    for (int i=0; i<bestCombo.size(); i++) {
+      gbc.gridx = 0;
+      gbc.gridy++;
+      gbc.gridwidth = 1;
+      JLabel comboLab = new JLabel(String.format("Wave %d: ", i+1));
+      comboLab.setFont(Fonts.typoFont.deriveFont(Font.BOLD, 20f));
+      ctnPanel.add(comboLab, gbc);
+      gbc.gridx = 1;
+      String comboStr = bestCombo.get(i);
+      int len = comboStr.length();
+      if (comboStr.length() > 20) comboStr = comboStr.substring(0, 21)+"...";
+      JLabel comboLab2 = new JLabel(comboStr.length()==0 ? "(None)":String.format("(%d) %s", len-1, comboStr));
+      comboLab2.setFont(Fonts.typoFont.deriveFont(Font.BOLD, 20f));
+      ctnPanel.add(comboLab2, gbc);
+    }
+
+    gbc.gridwidth = 2;
+    gbc.gridy++;
+    gbc.gridx = 0;
+    gbc.insets = new Insets(30, 0, 0, 0);
+    JButton rtnBtn = new JButton("Return to main menu");
+    rtnBtn.setFont(Fonts.btnFont.deriveFont(22f));
+    rtnBtn.setActionCommand("quit");
+    rtnBtn.addActionListener(this);
+    ctnPanel.add(rtnBtn, gbc);
+
+    ui.setActivePanel(sPanel);
+  }
+
+  /*
+   * Description: Updates the number of points in the stats JPanel if it has changed.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void updateDisplays() {
+    final int pts = ui.game.stat.pts;
+    if (pts == shownPts) return;
+    shownPts = pts;
+    SwingUtilities.invokeLater(new Runnable() {
+      public void run() {
+        pointsL.setText(""+pts);
+      }
+    });
+  }
+}
@@ -0,0 +1,145 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: GroupArena class.
+// Owns the TorpedoGroups of a session in numbered slots that are reused once a group is
+// removed. Each slot has a generation that changes on every reuse, and a group's serial
+// is its handle: the slot and the generation packed into a long. Code that has to refer
+// to a group across ticks keeps the handle and looks the group up again, which fails once
+// the group has been removed, even if its slot or object has since been reused.
+// Groups are removed at the end of the group update in one batch, so the update loops can
+// walk the dense list of the SeqIndex without it changing under them.
+
+import java.util.*;
+
+class GroupArena {
+  static final long NONE = 0; // Handle that never refers to a group.
+
+  private TorpedoGroup[] slots = new TorpedoGroup[16]; // Group object of each slot, live or idle.
+  private int[] gen = new int[16];   // Generation of each slot. Starts at 1 so no handle is NONE.
+  private int slotCt = 0;            // Number of slots ever used.
+  private int[] freeSlots = new int[16];
+  private int freeCt = 0;
+  private TorpedoGroup[] spares = new TorpedoGroup[0]; // Groups made ahead of time, used for new slots.
+  private int spareCt = 0;
+  private final ArrayList<TorpedoGroup> retired = new ArrayList<>(); // Groups to remove at the next flush.
+
+  /*
+   * Description: Adds groups to put into new slots, before making new ones.
+   * They are kept along with any earlier spares that were not needed.
+   * Parameters: s: Groups made ahead of time, eg on a background thread, never used yet.
+   * Return: (none)
+   */
+  void stock(TorpedoGroup[] s) {
+    if (spareCt + s.length > spares.length) spares = Arrays.copyOf(spares, spareCt + s.length);
+    System.arraycopy(s, 0, spares, spareCt, s.length);
+    spareCt += s.length;
+  }
+
+  /*
+   * Description: Returns the number of groups that can be acquired without making new ones.
+   * Parameters: (none)
+   * Return: Number of idle slots and spare groups.
+   */
+  int available() {
+    return freeCt + spareCt;
+  }
+
+  /*
+   * Description: Takes an idle group, using a spare or making a new one if every slot is in use.
+   * The caller sets it up with its init method.
+   * Parameters: (none)
+   * Return: Group whose serial is its new handle.
+   */
+  TorpedoGroup acquire() {
+    int s;
+    if (freeCt > 0) s = freeSlots[--freeCt];
+    else {
+      if (slotCt == slots.length) {
+        slots = Arrays.copyOf(slots, slotCt * 2);
+        gen = Arrays.copyOf(gen, slotCt * 2);
+      }
+      s = slotCt++;
+      if (spareCt > 0) {
+        slots[s] = spares[--spareCt];
+        spares[spareCt] = null;
+      }
+      else slots[s] = new TorpedoGroup();
+      gen[s] = 1;
+    }
+    TorpedoGroup tg = slots[s];
+    tg.serial = handle(s, gen[s]);
+    return tg;
+  }
+
+  /*
+   * Description: Looks up a group by handle.
+   * Parameters: h: Handle from the group's serial.
+   * Return: The group, or null if it has been removed since.
+   */
+  TorpedoGroup get(long h) {
+    int s = (int) h;
+    if (h == NONE || s < 0 || s >= slotCt) return null;
+    TorpedoGroup tg = slots[s];
+    return tg.serial == h ? tg : null;
+  }
+
+  /*
+   * Description: Marks a group for removal at the next flush. It stays live until then.
+   * Parameters: tg: Group to remove.
+   * Return: (none)
+   */
+  void retire(TorpedoGroup tg) {
+    retired.add(tg);
+  }
+
+  /*
+   * Description: Removes the retired groups, in the order they were retired: frees their
+   * bodies, takes them out of the index and makes their slots idle.
+   * Parameters: idx: Index the groups are in.
+   * Return: (none)
+   */
+  void flush(SeqIndex idx) {
+    for (int i = 0; i < retired.size(); i++) {
+      TorpedoGroup tg = retired.get(i);
+      tg.free();
+      idx.remove(tg);
+      release(tg);
+    }
+    retired.clear();
+  }
+
+  /*
+   * Description: Resets a group and makes its slot idle, moving the slot to its next
+   * generation. Releasing an idle group has no effect.
+   * Parameters: tg: Group that is no longer in use. It must not be in the index.
+   * Return: (none)
+   */
+  void release(TorpedoGroup tg) {
+    if (tg.serial == NONE) return;
+    int s = (int) tg.serial;
+    tg.recycle();
+    tg.serial = NONE;
+    gen[s]++;
+    if (freeCt == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCt * 2);
+    freeSlots[freeCt++] = s;
+  }
+
+  /*
+   * Description: Packs a slot and its generation into a handle.
+   * Parameters: s: Slot.
+   *             g: Generation of the slot.
+   * Return: Handle.
+   */
+  private static long handle(int s, int g) {
+    return (long) g << 32 | s;
+  }
+
+  /*
+   * Description: Returns the arena's statistics for debugging.
+   * Parameters: (none)
+   * Return: Number of slots used and idle, and of spare groups.
+   */
+  public String toString() {
+    return String.format("%d made/%d idle/%d spare", slotCt, freeCt, spareCt);
+  }
+}
@@ -0,0 +1,346 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: Headless class, AllocMeter class and scripted input (ScriptedInput, KeyScript, BotTypist).
+// Runs complete games without a display on a virtual clock, as fast as the CPU allows,
+// driven by scripted keystrokes. Used to profile and load-test the simulation.
+//
+// Usage: java Headless [-games N] [-seed N] [-minutes N] [-cps N] [-typos P] [-script FILE]
+//                      [-threads N] [-max N] [-alloc 1] [-profile 1] [-check 1]
+// With -threads, the games run at the same time on a SessionHost with N carrier threads,
+// at most -max of them at once. With -alloc 1, the heap allocated by each simulation tick
+// is measured and reported (AllocMeter). With -profile 1, the time spent in each system
+// of the tick (World) is reported per game. With -check 1, the data structure checks
+// (SelfCheck) are run from the seed instead of any games.
+
+import java.util.*;
+import java.util.List;
+import java.io.*;
+import java.lang.management.*;
+
+class Headless {
+
+  /*
+   * Description: Runs a game until it is won, lost or the tick limit is reached.
+   * Parameters: game: Game session to run. Must be driven by a virtual clock.
+   *             input: Scripted input, or null for none.
+   *             maxTicks: Max. number of simulation ticks to run.
+   * Return: Number of ticks run.
+   */
+  static long run(Game game, ScriptedInput input, long maxTicks) {
+    return run(game, input, maxTicks, null);
+  }
+
+  /*
+   * Description: Runs a game until it is won, lost or the tick limit is reached, measuring
+   * the heap allocated by each tick of the simulation (not by the scripted input).
+   * Parameters: game: Game to run, on a manual clock.
+   *             input: Scripted input, or null.
+   *             maxTicks: Max. number of ticks to run.
+   *             meter: Meter to add the allocations to, or null.
+   * Return: Number of ticks run.
+   */
+  static long run(Game game, ScriptedInput input, long maxTicks, AllocMeter meter) {
+    long ticks = 0;
+    while (ticks < maxTicks) {
+      if (input != null) input.poll(game);
+      game.clock.advance(Game.TICK_NS);
+      ticks++;
+      boolean typed = !game.keys.isEmpty();
+      long b0 = meter != null ? meter.allocated() : 0;
+      boolean done = game.advance() || game.isLost();
+      if (meter != null) meter.addTick(meter.allocated() - b0, typed);
+      if (done) break;
+    }
+    return ticks;
+  }
+
+  /*
+   * Description: Runs the games at the same time on a SessionHost and prints the results.
+   * Parameters: phrases: Master phrases.
+   *             games: Number of games to run.
+   *             seed: Seed of the first game.
+   *             maxTicks: Tick budget of each game.
+   *             cps, typos: Bot typing speed and typo rate.
+   *             script: Keystroke script to play instead of the bot, or null.
+   *             threads: Number of carrier threads.
+   *             maxActive: Max. number of games running at once.
+   * Return: (none)
+   */
+  static void runHosted(List<String> phrases, int games, long seed, long maxTicks, double cps, double typos,
+      String script, int threads, int maxActive) throws IOException {
+    SessionHost host = new SessionHost(threads, maxActive, 100);
+    List<Session> sessions = new ArrayList<>();
+    long t0 = System.nanoTime();
+    try {
+      for (int n = 0; n < games; n++) {
+        Game game = new Game(new GameClock(true), phrases, seed + n);
+        ScriptedInput input = script != null ? KeyScript.load(script) : new BotTypist(cps, typos, seed + n);
+        sessions.add(host.submitWait(game, input, maxTicks));
+      }
+      for (Session s : sessions) s.done.join();
+    } catch (InterruptedException ie) {
+      return;
+    } finally {
+      host.shutdown();
+    }
+    long ns = System.nanoTime() - t0;
+
+    String[] results = {"running", "won", "lost", "time limit", "failed"};
+    for (int n = 0; n < games; n++) {
+      Session s = sessions.get(n);
+      G.sysprtf("Game %d (seed %d): %s at wave %d with %d pts, %d ticks\n",
+          n+1, seed + n, results[s.result], s.game.waveCt, s.game.stat.pts, s.getTicks());
+      if (s.error != null) s.error.printStackTrace();
+    }
+    G.sysprtf("Host: %s\n", host);
+    G.sysprtf("Total: %d games in %.1f ms on %d threads\n", games, ns / 1e6, threads);
+  }
+
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+
+    int games = 1;        // Number of games to run, one after another.
+    long seed = 1;        // Seed of the first game; following games use seed+1, seed+2, ...
+    double minutes = 30;  // Game time limit per game, in minutes.
+    double cps = 4;       // Typing speed of the bot, in characters per second.
+    double typos = 0.05;  // Fraction of the bot's keystrokes that are typos.
+    String script = null; // Keystroke script to play instead of the bot.
+    int threads = 0;      // Carrier threads to run the games on at once, or 0 to run them one after another.
+    int maxActive = 1000; // Max. number of games running at once on the carriers.
+    boolean alloc = false; // Whether to measure the heap allocated per tick.
+    boolean profile = false; // Whether to time the systems of the tick.
+    boolean check = false;   // Whether to run the data structure checks instead of games.
+    // Parse the command line options.
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String v = args[i+1];
+      switch (args[i]) {
+        case "-games":   games = Integer.parseInt(v); break;
+        case "-seed":    seed = Long.parseLong(v); break;
+        case "-minutes": minutes = Double.parseDouble(v); break;
+        case "-cps":     cps = Double.parseDouble(v); break;
+        case "-typos":   typos = Double.parseDouble(v); break;
+        case "-script":  script = v; break;
+        case "-threads": threads = Integer.parseInt(v); break;
+        case "-max":     maxActive = Integer.parseInt(v); break;
+        case "-alloc":   alloc = Integer.parseInt(v) != 0; break;
+        case "-profile": profile = Integer.parseInt(v) != 0; break;
+        case "-check":   check = Integer.parseInt(v) != 0; break;
+        default:
+          G.sysprtf("Unknown option %s\n", args[i]);
+          return;
+      }
+    }
+
+    if (check) {
+      if (SelfCheck.runAll(seed) > 0) System.exit(1);
+      return;
+    }
+    List<String> phrases = Game.loadPhrases();
+    long maxTicks = (long) (minutes * 60 * GameClock.SEC / Game.TICK_NS);
+    if (threads > 0) {
+      runHosted(phrases, games, seed, maxTicks, cps, typos, script, threads, maxActive);
+      return;
+    }
+    long totalTicks = 0;
+    long totalNs = 0;
+    AllocMeter meter = alloc ? new AllocMeter() : null;
+    for (int n = 0; n < games; n++) {
+      Game game = new Game(new GameClock(true), phrases, seed + n);
+      game.world.profile = profile;
+      ScriptedInput input = script != null ? KeyScript.load(script) : new BotTypist(cps, typos, seed + n);
+
+      long t0 = System.nanoTime();
+      long ticks = run(game, input, maxTicks, meter);
+      long ns = System.nanoTime() - t0;
+      totalTicks += ticks;
+      totalNs += ns;
+
+      String result = game.isLost() ? "lost" : ticks < maxTicks ? "won" : "time limit";
+      G.sysprtf("Game %d (seed %d): %s at wave %d with %d pts, %d ticks (%.1f min game time) in %.1f ms = %.0f ticks/s\n",
+          n+1, seed + n, result, game.waveCt, game.stat.pts, ticks, (double) game.simTime / GameClock.SEC / 60,
+          ns / 1e6, ticks * 1e9 / ns);
+      if (meter != null)
+        G.sysprtf("  Pools: pulses %s, ships %s, groups %s, torpedoes %s\n",
+            game.pulsePool, game.shipPool, game.groups, game.torpPool);
+      if (profile) G.sysprtf("  Systems: %s\n", game.world);
+    }
+    if (games > 1)
+      G.sysprtf("Total: %d ticks in %.1f ms = %.0f ticks/s\n", totalTicks, totalNs / 1e6, totalTicks * 1e9 / totalNs);
+    if (meter != null) G.sysprtf("Allocation: %s\n", meter);
+  }
+}
+
+class AllocMeter {
+  // Per-thread allocation counter of the HotSpot JVM.
+  private final com.sun.management.ThreadMXBean mx =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private long ticks = 0;      // Ticks measured.
+  private long bytes = 0;      // Total bytes allocated by them.
+  private long zeroTicks = 0;  // Ticks that allocated nothing.
+  private long maxBytes = 0;   // Most bytes allocated by one tick.
+  // The same for the steady-state ticks, in which no keystroke was applied.
+  private long quietTicks = 0, quietBytes = 0, quietZeroTicks = 0;
+
+  /*
+   * Description: Returns the bytes allocated so far by the current thread.
+   * Parameters: (none)
+   * Return: Allocated bytes.
+   */
+  long allocated() {
+    return mx.getCurrentThreadAllocatedBytes();
+  }
+
+  /*
+   * Description: Adds a measured tick.
+   * Parameters: b: Bytes the tick allocated.
+   *             typed: Whether the tick applied keystrokes.
+   * Return: (none)
+   */
+  void addTick(long b, boolean typed) {
+    ticks++;
+    bytes += b;
+    if (b == 0) zeroTicks++;
+    if (b > maxBytes) maxBytes = b;
+    if (!typed) {
+      quietTicks++;
+      quietBytes += b;
+      if (b == 0) quietZeroTicks++;
+    }
+  }
+
+  /*
+   * Description: Summarises the measured ticks.
+   * Parameters: (none)
+   * Return: Summary of the allocations.
+   */
+  public String toString() {
+    if (ticks == 0) return "no ticks";
+    return String.format("%d ticks, %.1f bytes/tick, %.2f%% allocation-free, max %d bytes in a tick; "
+        + "%d ticks without keystrokes, %.1f bytes/tick, %.2f%% allocation-free",
+        ticks, (double) bytes / ticks, 100.0 * zeroTicks / ticks, maxBytes,
+        quietTicks, (double) quietBytes / Math.max(quietTicks, 1), 100.0 * quietZeroTicks / Math.max(quietTicks, 1));
+  }
+}
+
+abstract class ScriptedInput {
+  /*
+   * Description: Types every keystroke that is due at the game's current time.
+   * Parameters: g: Game to type into.
+   * Return: (none)
+   */
+  abstract void poll(Game g);
+}
+
+class KeyScript extends ScriptedInput {
+  private long[] times;   // Game time, in ns, of each line of keystrokes.
+  private String[] keys;  // Characters typed by each line.
+  private int next = 0;   // Index of the next line to type.
+
+  /*
+   * Description: Loads a keystroke script. Each line is "<game time in ms> <characters>";
+   * the characters are typed one after another at that time.
+   * Parameters: fileName: Name of the script file.
+   * Return: Loaded script.
+   */
+  static KeyScript load(String fileName) throws IOException {
+    ArrayList<Long> t = new ArrayList<>();
+    ArrayList<String> k = new ArrayList<>();
+    BufferedReader s = new BufferedReader(new FileReader(fileName));
+    String read;
+    // Read from the file until all lines are exhausted
+    while ((read = s.readLine()) != null) {
+      int sp = read.indexOf(' ');
+      if (sp <= 0) continue; // Skip blank and malformed lines.
+      t.add(Long.parseLong(read.substring(0, sp)) * GameClock.MS);
+      k.add(read.substring(sp + 1));
+    }
+    s.close();
+
+    KeyScript ks = new KeyScript();
+    ks.times = new long[t.size()];
+    ks.keys = k.toArray(new String[0]);
+    for (int i = 0; i < ks.times.length; i++) ks.times[i] = t.get(i);
+    return ks;
+  }
+
+  void poll(Game g) {
+    while (next < times.length && times[next] <= g.simTime) {
+      for (int i = 0; i < keys[next].length(); i++)
+        g.type(keys[next].charAt(i));
+      next++;
+    }
+  }
+}
+
+class BotTypist extends ScriptedInput {
+  private long interval;          // Time between keystrokes, in ns.
+  private long nextKeyT = 0;      // Game time of the next keystroke.
+  private double typoRate;        // Probability of a keystroke being a typo.
+  private SplittableRandom rnd;
+  private long target = GroupArena.NONE; // Handle of the torpedo group being typed out.
+  private int typed;              // Number of characters of the target typed so far.
+  private ArrayDeque<Long> fired = new ArrayDeque<>(); // Handles of recently completed groups, waiting for their pulse.
+
+  /*
+   * Description: Creates a bot that types out the torpedo groups in view.
+   * Parameters: cps: Typing speed, in characters per second.
+   *             typos: Probability of a keystroke being a typo.
+   *             seed: Seed for the typo generator.
+   * Return: (none)
+   */
+  BotTypist(double cps, double typos, long seed) {
+    interval = (long) (GameClock.SEC / cps);
+    typoRate = typos;
+    rnd = new SplittableRandom(seed);
+  }
+
+  /*
+   * Description: Picks the next torpedo group to type: an unlocked group in view,
+   * preferring the one that is already matched furthest, then the closest one.
+   * Parameters: g: Game to pick from.
+   * Return: Chosen torpedo group, or null if there is none.
+   */
+  private TorpedoGroup pickTarget(Game g) {
+    TorpedoGroup best = null;
+    double bestDist = 0;
+    for (int i = 0; i < g.tGroups.size(); i++) {
+      TorpedoGroup tg = g.tGroups.get(i);
+      if (tg.seq.length() == 0 || tg.locked != null || fired.contains(tg.serial)) continue;
+      Pt2 p = tg.getFirstPos();
+      if (p == null || !g.view.inView(p)) continue;
+      double dist = p.diff(g.hShip.getPos()).magn();
+      if (best == null || tg.matchCt > best.matchCt || tg.matchCt == best.matchCt && dist < bestDist) {
+        best = tg;
+        bestDist = dist;
+      }
+    }
+    return best;
+  }
+
+  void poll(Game g) {
+    while (nextKeyT <= g.simTime) {
+      nextKeyT += interval;
+      TorpedoGroup tg = g.groups.get(target);
+      if (tg != null && (tg.locked != null || tg.getFirstPos() == null || !g.view.inView(tg.getFirstPos())))
+        tg = null; // Target destroyed or gone.
+      if (tg == null) {
+        tg = pickTarget(g);
+        target = tg == null ? GroupArena.NONE : tg.serial;
+        if (tg == null) continue; // Nothing to shoot at.
+        typed = Math.min(tg.matchCt, tg.seq.length() - 1);
+      }
+
+      if (rnd.nextDouble() < typoRate) {
+        g.type((char) ('a' + rnd.nextInt(26)));
+        typed = 0; // A typo breaks the match, so start the word again.
+        continue;
+      }
+      g.type(tg.seq.charAt(typed++));
+      if (typed == tg.seq.length()) { // Word complete: wait for its pulse to land.
+        fired.addLast(target);
+        if (fired.size() > 8) fired.removeFirst();
+        target = GroupArena.NONE;
+      }
+    }
+  }
+}
@@ -7,25 +7,23 @@ import java.util.List;
 import java.awt.*;
 import java.awt.geom.*;
 
-class HomeShip {
+class HomeShip implements TimerListener {
 
   private Pt2 pos; // Position of the home ship, in BSU.
-  private Pt2_i scaledSz; // Scaled size, in screen pixels, of the ship image.
-  private List<Pulse> pulses; // All pulses.
+  static final Pt2 bsSz = new Pt2(0.05, 0.05); // Size of the home ship, in BSU. Never modified.
+  private final PulseRing pulses = new PulseRing(); // All pulses, oldest first.
   private double ang = Math.PI / 2; // Direction of the home ship orientation.
-  private static double contactRad = 0.06; // Distance for TxTorpedoes to consider "contacted" with the HomeShip.
+  private double prevAng = ang; // Orientation at the previous simulation tick, for interpolated drawing.
+  private static final double contactRad = 0.06; // Distance for TxTorpedoes to consider "contacted" with the HomeShip.
   private StringBuilder activePulseStr = new StringBuilder(); // Active pulse sequence.
   private Game game;
+  private final Pt2 targetPt = new Pt2(0, 0); // Position of the focused group, reused by aim().
 
   public Pt2 getPos() {
     return pos;
   }
 
-  public Pt2_i getScaledSz() {
-    return scaledSz;
-  }
-
-  public List<Pulse> getPulses() {
+  public PulseRing getPulses() {
     return pulses;
   }
 
@@ -46,13 +44,14 @@ class HomeShip {
   }
 
   private int  shipHealth=5; // Every TxTorpedo contact removes 1 health
-  private long explodeTime = -1;  // time of explosion start
-  private long damageTime  = -1;  // time of last torpedo hit
-  private long kExplodeAnimDuration   = 1000;   // Explosion anim duration
-  private long kGameOverFadeInDuration= 2000;   // Fade in duration of the "Game Over" message.
-  private long kDamageShakeDuration   = 1000;   // How long should the ship shake on hit.
-  long lastPulseTime = -1; // Last pulse time, in ms
-  private Set<TxTorpedo> hitTorps=new HashSet<TxTorpedo>(); // Set of TxTorpedoes that have hit the HomeShip.
+  private long explodeTime = -1;  // game time of explosion start, in ns
+  private long damageTime  = -1;  // game time of last torpedo hit, in ns
+  private static final long kExplodeAnimDuration   = 1000 * GameClock.MS;   // Explosion anim duration
+  private static final long kGameOverFadeInDuration= 2000 * GameClock.MS;   // Fade in duration of the "Game Over" message.
+  private static final long kDamageShakeDuration   = 1000 * GameClock.MS;   // How long should the ship shake on hit.
+  private boolean gameOver = false; // Whether the explosion and "Game Over" animations are done.
+  private long gameOverTimer = 0;   // Timer for the end of the animations.
+  long lastPulseTime = -1; // Last pulse time, in ns
 
   /*
    * Description: Creates a new HomeShip.
@@ -64,24 +63,44 @@ class HomeShip {
     game = g;
     // baseImg = new ImageIcon("./hs.png").getImage();
     pos = new Pt2(initialPos);
-    pulses = Collections.synchronizedList(new LinkedList<>());
+    game.tGroups.matchOn(activePulseStr);
+  }
+
+  /*
+   * Description: Repairs the ship and clears its pulses for a restarted game.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void reset() {
+    for (int i=0; i<pulses.size(); i++)
+      game.pulsePool.release(pulses.get(i));
+    pulses.clear();
+    activePulseStr.setLength(0);
+    game.tGroups.matchCleared();
+    ang = Math.PI / 2;
+    prevAng = ang;
+    shipHealth = 5;
+    explodeTime = -1;
+    damageTime = -1;
+    gameOver = false;
+    gameOverTimer = 0;
+    lastPulseTime = -1;
   }
 
   /*
-   * Description: Causes damage to the home ship.
-   * Parameters: torp: TxTorpedo that causes damage.
+   * Description: Causes damage to the home ship. Called once for each TxTorpedo that hits it.
+   * Parameters: now: Current game time, in ns.
    * Return: (none)
    */
-  void causeDamage(TxTorpedo torp) {
+  void causeDamage(long now) {
     if (shipHealth<0)
-      explode();  // Sustain the explosion effect a bit longer.
-    else if (!hitTorps.contains(torp)) { // Update health and damage time.
-      hitTorps.add(torp);
+      explode(now);  // Sustain the explosion effect a bit longer.
+    else { // Update health and damage time.
       shipHealth--;
-      damageTime = System.currentTimeMillis();
+      damageTime = now;
       if (shipHealth<=0) {
         shipHealth=0;
-        explode();
+        explode(now);
       }
     }
   }
@@ -95,9 +114,7 @@ class HomeShip {
    */
   int shipStatus() {
     if (shipHealth<=0 && explodeTime>0) {  // exploded/exploding/displaying "Game Over"
-      long timeNow = System.currentTimeMillis();
-      long timeAfterX = timeNow - explodeTime;
-      if (timeAfterX>kExplodeAnimDuration + kGameOverFadeInDuration) { // Done animations.
+      if (gameOver) { // Done animations.
         return 0;
       }
       else {
@@ -108,21 +125,32 @@ class HomeShip {
       return shipHealth; // >0 means the home ship is still alive.
   }
 
+  /*
+   * Description: Marks the explosion and "Game Over" animations as done.
+   * Parameters: kind: Unused; the ship only has one timer.
+   *             now: Current game time, in ns.
+   * Return: (none)
+   */
+  public void onTimer(int kind, long now) {
+    gameOver = true;
+  }
+
   /*
    * Description: Makes the ship start animating the explosion.
-   * Parameters: (none)
+   * Parameters: timeNow: Current game time, in ns.
    * Return: (none)
    */
-  void explode() {
+  void explode(long timeNow) {
     game.aWave.canAdd = false;
-    long timeNow = System.currentTimeMillis();
 
     if (explodeTime<0 // Must test! O.w. explodeTime will be pushed forward repeatedly.
-    || (timeNow-explodeTime>500 && timeNow-explodeTime<kExplodeAnimDuration)
+    || (timeNow-explodeTime>500*GameClock.MS && timeNow-explodeTime<kExplodeAnimDuration)
     // This weird test to allow the explosion to renew a bit if it has not completely died down.
     )
     {
-      explodeTime = System.currentTimeMillis();
+      explodeTime = timeNow;
+      game.timers.cancel(gameOverTimer);
+      gameOverTimer = game.timers.schedule(explodeTime + kExplodeAnimDuration + kGameOverFadeInDuration + 1, this, 0);
     }
   }
 
@@ -130,15 +158,17 @@ class HomeShip {
   /*
    * Description: Sends a new pulse out from the ship.
    * Parameters: ch: Character for the pulse.
+   *             now: Current game time, in ns.
    * Return: (none)
    */
-  void pulse(char ch) {
+  void pulse(char ch, long now) {
     if (shipStatus() <= 0) return; // Exploded ship cannot send pulse.
     if (Character.isLetter(ch) || Character.isDigit(ch)
         || "!@#$%^&*()-=_+[]\\{}|;':\",./<>?".contains("" + ch)) { // Check valid character.
-      lastPulseTime = System.currentTimeMillis();
+      lastPulseTime = now;
       activePulseStr.append(ch);
-      Pulse p = new Pulse(pos, game);
+      game.tGroups.matchAppended();
+      Pulse p = game.pulsePool.acquire().init(pos, game, now);
       pulses.add(p);
     }
   }
@@ -149,8 +179,10 @@ class HomeShip {
    * Return: (none)
    */
   void pulseExpiry() {
-    if (activePulseStr.length() > 0) // Remove a letter from the pulse string.
+    if (activePulseStr.length() > 0) { // Remove a letter from the pulse string.
       activePulseStr.deleteCharAt(0);
+      game.tGroups.matchDroppedFirst();
+    }
     updateAllMatchCts(false, null);
   }
 
@@ -165,19 +197,16 @@ class HomeShip {
     boolean effect = false;
     boolean comboBroken = true;
     String word = "";
-    synchronized (game.tGroups) {
-      // Loop through all TorpedoGroups.
-      for (List<TorpedoGroup> tgs : game.tGroups.values()) {
-        for (TorpedoGroup tg : tgs) {
-          int prevMatchCt = tg.matchCt;
-          // Update match count.
-          if (tg.updateMatchCt(activePulseStr)) {
-            effect = true;
-            word = tg.seq;
-          }
-          if (prevMatchCt < tg.matchCt && tg.matchCt != 1) comboBroken = false;
-        }
+    // Loop through all TorpedoGroups.
+    for (int i=0; i<game.tGroups.size(); i++) {
+      TorpedoGroup tg = game.tGroups.get(i);
+      int prevMatchCt = tg.matchCt;
+      // Update match count.
+      if (tg.updateMatchCt(game.tGroups.matchLen(tg))) {
+        effect = true;
+        word = tg.seq;
       }
+      if (prevMatchCt < tg.matchCt && tg.matchCt != 1) comboBroken = false;
     }
     if (letterAdded) {
       if (!comboBroken || fullMatch) { // If the combo was not broken, increase points.
@@ -211,24 +240,31 @@ class HomeShip {
       game.stat.clearCombo(game.waveCt);
     }
 
-    game.stat.updateDisplays();
     return effect;
   }
 
   /*
-   * Description: Updates the display size of the HomeShip
-   * Parameters: bv: BattleView for scaling.
+   * Description: Copies the ship, its pulses and the active pulse sequence into a render snapshot.
+   * Parameters: s: Snapshot to write into.
    * Return: (none)
    */
-  void onResize(BattleView bv) {
-    scaledSz = bv.scale(new Pt2(0.05, 0.05));
-    // shipImg = baseImg.getScaledInstance(scaledSz.x, scaledSz.y, Image.SCALE_SMOOTH);
+  void snapshot(RenderSnapshot s) {
+    s.hsX = pos.x;
+    s.hsY = pos.y;
+    s.hsAng = ang;
+    s.hsPrevAng = prevAng;
+    s.hsHealth = shipHealth;
+    s.hsExplodeTime = explodeTime;
+    s.hsDamageTime = damageTime;
+    s.pulseStr = activePulseStr.toString();
+    for (int i=0; i<pulses.size(); i++)
+      pulses.get(i).snapshot(s);
   }
 
   // facets: Path2Ds for the ship's appearance.
-  private Path2D[] facets = {new Path2D.Double(), new Path2D.Double(), new Path2D.Double(), new Path2D.Double(), new Path2D.Double(), new Path2D.Double()};
+  private static final Path2D[] facets = {new Path2D.Double(), new Path2D.Double(), new Path2D.Double(), new Path2D.Double(), new Path2D.Double(), new Path2D.Double()};
   // facetNs: 3D normal vectors of the facets (for illumination calculations)
-  private double[][] facetNs = {  // Normalize them on facet initialization
+  private static final double[][] facetNs = {  // Normalize them on facet initialization
     {0,-Math.sqrt(3)/2,.5},
     {0,0,1},
     {-Math.sqrt(3)/2*Math.sin(Math.PI/6), -Math.sqrt(3)/2, 0.5},
@@ -236,64 +272,63 @@ class HomeShip {
     {-Math.sqrt(2)/2,0,Math.sqrt(2)/2},
     { Math.sqrt(2)/2,0,Math.sqrt(2)/2}
   };
-  private boolean facetsReadyQ=false; // A flag for initializing the facet shapes.
+
+  static {  // initialize the facet geometry
+    double s=1.3;      // The intrinsic size of the geometry is ~2x2 ((-1,-0.7) to (1, 0.85))
+    // Hand crafted geometry of the HomeShip.
+    G.mkPath(facets[0], s, new double[][] {{0.25,-0.7}, {-0.25,-0.7}, {-0.25, -0.37}, {0.25, -0.37}}, false);
+    G.mkPath(facets[0], s, new double[][] {{0.25,-0.25}, {-0.25,-0.25}, {-0.25, 0}, {0.25, 0}}, true);
+    G.mkPath(facets[1], s, new double[][] {
+      {0.35, -0.15}, {-0.35, -0.15}, {-1,0.35}, {-0.85,0.75}, {-0.25,0.6},
+      {0.25,0.6}, {0.85,0.75}, {1,0.35}, {0.35, -0.15}}, false);
+    G.mkPath(facets[2], s, new double[][] {{-0.25,-0.7}, {-0.35,-0.15}, {-0.25,0.6}, {-0.2,-0.1}}, false);
+    G.mkPath(facets[3], s, new double[][] {{0.25,-0.7}, {0.35,-0.15}, {0.25,0.6}, {0.2,-0.1}}, false);
+    G.mkPath(facets[4], s, new double[][] {{0,0.15}, {-0.1,0.15},{-0.1,0.85}, {0,0.85}}, false);
+    G.mkPath(facets[5], s, new double[][] {{0.1,0.15}, {0,0.15}, {0,0.85}, {0.1,0.85}}, false);
+
+    for (int i=0; i<facetNs.length; i++) {
+      // Normalize the normal vectors of the facets.
+      double[] n=facetNs[i];
+      double nm = Math.sqrt(n[0]*n[0] + n[1]*n[1] + n[2]*n[2]);
+      n[0]/=nm; n[1]/=nm; n[2]/=nm;
+    }
+  }
 
   /*
-   * Description: Draws the HomeShip.
-   * Parameters: _g: Graphics object to draw onto
-   *             bv: BattleView information.
+   * Description: Draws the HomeShip and its pulses from a render snapshot.
+   * Parameters: bv: BattleView information.
+   *             _g: Graphics object to draw onto
+   *             s: Snapshot to draw.
    * Return: (none)
    */
-  void draw(BattleView bv, Graphics _g) {
-    if (!facetsReadyQ) {  // initialize the facet geometry
-      double s=1.3;      // The intrinsic size of the geometry is ~2x2 ((-1,-0.7) to (1, 0.85))
-      // Hand crafted geometry of the HomeShip.
-      G.mkPath(facets[0], s, new double[][] {{0.25,-0.7}, {-0.25,-0.7}, {-0.25, -0.37}, {0.25, -0.37}}, false);
-      G.mkPath(facets[0], s, new double[][] {{0.25,-0.25}, {-0.25,-0.25}, {-0.25, 0}, {0.25, 0}}, true);
-      G.mkPath(facets[1], s, new double[][] {
-        {0.35, -0.15}, {-0.35, -0.15}, {-1,0.35}, {-0.85,0.75}, {-0.25,0.6},
-        {0.25,0.6}, {0.85,0.75}, {1,0.35}, {0.35, -0.15}}, false);
-      G.mkPath(facets[2], s, new double[][] {{-0.25,-0.7}, {-0.35,-0.15}, {-0.25,0.6}, {-0.2,-0.1}}, false);
-      G.mkPath(facets[3], s, new double[][] {{0.25,-0.7}, {0.35,-0.15}, {0.25,0.6}, {0.2,-0.1}}, false);
-      G.mkPath(facets[4], s, new double[][] {{0,0.15}, {-0.1,0.15},{-0.1,0.85}, {0,0.85}}, false);
-      G.mkPath(facets[5], s, new double[][] {{0.1,0.15}, {0,0.15}, {0,0.85}, {0.1,0.85}}, false);
-
-      for (int i=0; i<facetNs.length; i++) {
-        // Normalize the normal vectors of the facets.
-        double[] n=facetNs[i];
-        double nm = Math.sqrt(n[0]*n[0] + n[1]*n[1] + n[2]*n[2]);
-        n[0]/=nm; n[1]/=nm; n[2]/=nm;
-      }
-      facetsReadyQ=true;  // Set this to avoid recreating the geometries again.
-    } // if (!facetsReadyQ)
-
+  static void draw(BattleView bv, Graphics _g, RenderSnapshot s) {
     Graphics2D g = (Graphics2D) _g;
+    SplittableRandom rnd = bv.game.rng.cosmetic;
+    long currTime = s.renderTime;
 
-    synchronized (pulses) {
-      Iterator<Pulse> it = pulses.iterator();
-      // Draw all pulses.
-      while (it.hasNext())
-        it.next().draw(bv, g);
-    }
+    // Draw all pulses.
+    for (int i=0; i<s.pulseCt; i++)
+      Pulse.draw(bv, g, s, i);
 
+    Pt2 pos = new Pt2(s.hsX, s.hsY);
+    Pt2_i scaledSz = bv.hsSz;
     Pt2_i scrCoords = bv.toScrPt(pos);
     AffineTransform at = new AffineTransform();
-
-    long currTime = System.currentTimeMillis();
+    double ang = s.hsPrevAng + G.deltaAngle(s.hsAng, s.hsPrevAng) * s.alpha; // Interpolated orientation.
 
     long timeAfterX=-1;
-    if (explodeTime>0) {
+    if (s.hsExplodeTime>0) {
       // Render the exploded appearance of the home ship.
-      timeAfterX = currTime - explodeTime;
+      timeAfterX = currTime - s.hsExplodeTime;
       if (timeAfterX>=0) {
         if (timeAfterX<kExplodeAnimDuration) { // Animating ship exploding
           float fade = (1.0f - timeAfterX/(float)kExplodeAnimDuration);
           // Shrink the explosion and the thickness of the "sparks".
-          Path2D xp = G.mkExplodePath(scaledSz.x*fade, timeAfterX);
+          Path2D xp = G.mkExplodePath(scaledSz.x*fade, timeAfterX, rnd);
           at.translate(scrCoords.x, scrCoords.y);
           AffineTransform xsave = g.getTransform();
           g.transform(at);
-          float v=0.8f+(float)Math.random()*0.8f;
+          float v=0.8f+(float)rnd.nextDouble()*0.8f;
           g.setColor(new Color(G.scaleRgb(0x4169e1, v)));
 
           g.setStroke(new BasicStroke(3.0f*(0.1f + fade*0.9f), BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL));
@@ -306,7 +341,7 @@ class HomeShip {
           if (timeAfterX<kExplodeAnimDuration + kGameOverFadeInDuration) {
             opacity = 255 - (int)((kExplodeAnimDuration+kGameOverFadeInDuration-timeAfterX)*255/kGameOverFadeInDuration);
           }
-          Font waveInfoFont = G.titleFont !=null ? G.titleFont.deriveFont(80f) : new Font("Arial", Font.BOLD, 80);
+          Font waveInfoFont = bv.bannerFont;
 
           FontMetrics fm = g.getFontMetrics(waveInfoFont);
           String str = "GaMe OvEr";
@@ -321,9 +356,9 @@ class HomeShip {
       } // if (timeAfterX>=0)
     }
     else { // Draw the ship normally
-      Font fnt = G.circFont.deriveFont(15f);
+      Font fnt = bv.healthFont;
       // FontMetrics fm = g.getFontMetrics(fnt);
-      String str = "12345678901234567890".substring(0, shipHealth);
+      String str = "12345678901234567890".substring(0, s.hsHealth);
       // Rectangle2D bounds = fm.getStringBounds(str, g);
       g.setColor(new Color(0xdd6050));
       g.setFont(fnt);
@@ -335,11 +370,11 @@ class HomeShip {
 
       int shakex=0, shakey=0;
       double shakea=0.0;
-      boolean shaking=currTime - damageTime < kDamageShakeDuration;
+      boolean shaking=s.hsDamageTime>=0 && currTime - s.hsDamageTime < kDamageShakeDuration;
       if (shaking) { // shake the ship a little.
-        shakex = (int)(Math.random()*5);
-        shakey = (int)(Math.random()*5);
-        shakea = Math.random()*0.1 - 0.05;
+        shakex = rnd.nextInt(5);
+        shakey = rnd.nextInt(5);
+        shakea = rnd.nextDouble()*0.1 - 0.05;
       }
 
       at.translate(scrCoords.x+shakex, scrCoords.y+shakey);
@@ -376,24 +411,22 @@ class HomeShip {
     }
   }
 
-  private long lastTime = System.currentTimeMillis();
   /*
    * Description: Rotates the HomeShip towards the focused TorpedoGroup.
-   * Parameters: bv: BattleView information.
-   *             targetTG: focused TorpedoGroup.
+   * Parameters: targetTG: focused TorpedoGroup.
+   *             delta: Simulation time step, in ns.
    * Return: (none)
    */
-  void moveFwd(BattleView bv, TorpedoGroup targetTG) {
-    long currT = System.currentTimeMillis();
-    long delta = currT - lastTime; //Math.min(1000, currT - lastTime);
-    lastTime = currT;
+  void aim(TorpedoGroup targetTG, long delta) {
+    prevAng = ang;
+    double dms = (double) delta / GameClock.MS; // Time step in ms.
 
     if (targetTG!=null) { // Found a torpedo group to rotate towards.
-      Pt2 targetPt = targetTG.getFirstPos();
+      targetTG.getFirstPos(targetPt);
       // bv.dbgPt(targetPt, bv.getGraphics());
       double targetAngle = Math.atan2(targetPt.y-pos.y, targetPt.x-pos.x);
       double dA = G.deltaAngle(targetAngle, ang);
-      double turn = (dA>0 ? 0.003 : -0.003)*delta;
+      double turn = (dA>0 ? 0.003 : -0.003)*dms;
       if (Math.abs(turn)>Math.abs(dA))
         ang=targetAngle;
       else
@@ -407,19 +440,27 @@ class HomeShip {
       // }
     }
     else { // Simply rotate around
-      ang=G.normalizeAngle(ang+0.001*delta);
+      ang=G.normalizeAngle(ang+0.001*dms);
     }
+  }
 
-    synchronized (pulses) {
-      // Loop through all pulses and draw
-      Iterator<Pulse> it = pulses.iterator();
-      while (it.hasNext()) {
-        Pulse p = it.next();
-        boolean remove = p.moveFwd(bv, delta);
-        if (remove) { // Remove pulses if they have expired
-          pulseExpiry();
-          it.remove();
-        }
+  /*
+   * Description: Moves the pulses forward and removes those that have expired.
+   * Parameters: vp: Viewport of the game.
+   *             now: Current game time, in ns.
+   *             delta: Simulation time step, in ns.
+   * Return: (none)
+   */
+  void movePulses(Viewport vp, long now, long delta) {
+    // Loop through all pulses and move them
+    for (int i=0; i<pulses.size(); i++) {
+      Pulse p = pulses.get(i);
+      boolean remove = p.moveFwd(vp, now, delta);
+      if (remove) { // Remove pulses if they have expired
+        pulseExpiry();
+        pulses.remove(i);
+        i--;
+        game.pulsePool.release(p);
       }
     }
   }
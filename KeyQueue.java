@@ -0,0 +1,95 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: KeyQueue class.
+// A fixed-size, lock-free ring of timestamped keystrokes for exactly one producer
+// thread (the Swing event thread) and one consumer thread (the simulation tick).
+// Keystrokes are applied by the simulation in the order they were typed, so typing
+// never touches game state from the event thread.
+
+import java.util.concurrent.atomic.*;
+
+class KeyQueue {
+  private final char[] chars;  // Characters typed, indexed by sequence number & mask.
+  private final long[] times;  // Game time, in ns, at which each character was typed.
+  private final int mask;      // Capacity - 1. The capacity is a power of 2.
+
+  // Sequence numbers of the next keystroke to write and to read. Each is only
+  // written by one thread; the lazySet publishes the slot contents before the index.
+  private final AtomicLong head = new AtomicLong(); // Next to read; written by the consumer.
+  private final AtomicLong tail = new AtomicLong(); // Next to write; written by the producer.
+  private long cachedHead = 0; // Producer's last view of head, to avoid re-reading it per offer.
+
+  /*
+   * Description: Creates an empty queue.
+   * Parameters: capacity: Max. number of keystrokes waiting, rounded up to a power of 2.
+   * Return: (none)
+   */
+  KeyQueue(int capacity) {
+    int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+    chars = new char[cap];
+    times = new long[cap];
+    mask = cap - 1;
+  }
+
+  /*
+   * Description: Adds a keystroke. Only called by the producer thread.
+   * Parameters: ch: Character typed.
+   *             t: Game time, in ns, at which it was typed.
+   * Return: Whether the keystroke was added; false if the queue is full.
+   */
+  boolean offer(char ch, long t) {
+    long tl = tail.get();
+    if (tl - cachedHead > mask) {
+      cachedHead = head.get();
+      if (tl - cachedHead > mask) return false; // Full: the simulation has stalled.
+    }
+    int i = (int) tl & mask;
+    chars[i] = ch;
+    times[i] = t;
+    tail.lazySet(tl + 1);
+    return true;
+  }
+
+  /*
+   * Description: Returns the time of the oldest keystroke. Only called by the consumer thread.
+   * Parameters: (none)
+   * Return: Game time, in ns, of the oldest keystroke, or Long.MAX_VALUE if the queue is empty.
+   */
+  long peekTime() {
+    long hd = head.get();
+    if (hd == tail.get()) return Long.MAX_VALUE;
+    return times[(int) hd & mask];
+  }
+
+  /*
+   * Description: Removes the oldest keystroke. Only called by the consumer thread,
+   * after peekTime() has returned a keystroke.
+   * Parameters: (none)
+   * Return: Character of the removed keystroke.
+   */
+  char poll() {
+    long hd = head.get();
+    char ch = chars[(int) hd & mask];
+    head.lazySet(hd + 1);
+    return ch;
+  }
+
+  /*
+   * Description: Discards every waiting keystroke. Only called by the consumer thread,
+   * or while the consumer is stopped.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void clear() {
+    head.lazySet(tail.get());
+  }
+
+  /*
+   * Description: Checks whether any keystrokes are waiting.
+   * Parameters: (none)
+   * Return: Whether the queue is empty.
+   */
+  boolean isEmpty() {
+    return head.get() == tail.get();
+  }
+}
@@ -0,0 +1,111 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: Pool and Pooled classes.
+// Per-session free lists of game entities (pulses, enemy ships and torpedoes), so long
+// sessions reuse their objects instead of handing them to the garbage collector.
+// Torpedo groups are kept in a GroupArena instead. A pooled object gets a new serial number every time it is taken
+// from its pool, so code that kept a reference can tell that the object has since been
+// reused for something else.
+
+import java.util.*;
+import java.util.function.*;
+
+abstract class Pooled {
+  long serial = 0; // Changes every time the object is taken from its pool; 0 while it is in the pool.
+
+  /*
+   * Description: Resets the object as it goes back into its pool, dropping its references
+   * to other objects. Objects are set up again by their init method when reused.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  abstract void recycle();
+}
+
+class Pool<T extends Pooled> {
+  private final Supplier<T> factory; // Makes a new object when the pool is empty.
+  private Object[] free = new Object[16]; // Objects waiting to be reused.
+  private int freeCt = 0;
+  private Object[] spares = new Object[0]; // Objects made ahead of time, used before the factory.
+  private int spareCt = 0;
+  private long nextSerial = 1;
+  private int created = 0; // Number of objects made by the factory.
+
+  /*
+   * Description: Creates an empty pool.
+   * Parameters: f: Makes a new object when the pool is empty.
+   * Return: (none)
+   */
+  Pool(Supplier<T> f) {
+    factory = f;
+  }
+
+  /*
+   * Description: Adds objects to take, before making new ones, when the pool is empty.
+   * They are kept along with any earlier spares that were not needed.
+   * Parameters: s: Objects made ahead of time, eg on a background thread, never used yet.
+   * Return: (none)
+   */
+  void stock(T[] s) {
+    if (spareCt + s.length > spares.length) spares = Arrays.copyOf(spares, spareCt + s.length);
+    System.arraycopy(s, 0, spares, spareCt, s.length);
+    spareCt += s.length;
+  }
+
+  /*
+   * Description: Returns the number of objects that can be taken without making new ones.
+   * Parameters: (none)
+   * Return: Number of idle and spare objects.
+   */
+  int available() {
+    return freeCt + spareCt;
+  }
+
+  /*
+   * Description: Takes an object from the pool, using a spare or making a new one if the
+   * pool is empty. The caller sets it up with its init method.
+   * Parameters: (none)
+   * Return: Object with a new serial number.
+   */
+  @SuppressWarnings("unchecked")
+  T acquire() {
+    T o;
+    if (freeCt > 0) {
+      o = (T) free[--freeCt];
+      free[freeCt] = null;
+    }
+    else if (spareCt > 0) {
+      o = (T) spares[--spareCt];
+      spares[spareCt] = null;
+    }
+    else {
+      o = factory.get();
+      created++;
+    }
+    o.serial = nextSerial++;
+    return o;
+  }
+
+  /*
+   * Description: Resets an object and puts it back into the pool. Releasing an object
+   * that is already in the pool has no effect.
+   * Parameters: o: Object that is no longer in use.
+   * Return: (none)
+   */
+  void release(T o) {
+    if (o.serial == 0) return;
+    o.recycle();
+    o.serial = 0;
+    if (freeCt == free.length) free = Arrays.copyOf(free, freeCt * 2);
+    free[freeCt++] = o;
+  }
+
+  /*
+   * Description: Returns the pool's statistics for debugging.
+   * Parameters: (none)
+   * Return: Number of objects made, waiting to be reused and spare.
+   */
+  public String toString() {
+    return String.format("%d made/%d idle/%d spare", created, freeCt, spareCt);
+  }
+}
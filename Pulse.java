@@ -1,28 +1,35 @@
 // Name: Rufin Hsu
 // Date: Jan 19, 2025
 // Description: Pulse class. Interactions, movement and drawing of HomeShip pulses.
+// Pulses are taken from the session's pool and put back when they dissipate.
 import java.util.*;
 import java.util.List;
 import java.awt.*;
 import java.awt.geom.*;
 
-class Pulse {
+class Pulse extends Pooled implements TimerListener {
   private Game game;
   // private char ch;
   private double rad = 0;       // radius of pulse
+  private double prevRad = 0;   // radius at the previous simulation tick, for interpolated drawing.
   private double speed = 1.5;   // bsu/sec
-  private long animTime = 750;  // Animation time of a pulse.
-  private long startTime;       // in ms
-  private Pt2 center;
+  private static final long animTime = 750 * GameClock.MS;  // Animation time of a pulse.
+  private long startTime;       // Game time of emission, in ns
+  private final Pt2 center = new Pt2(0, 0);
+  private final Pt2 torpPos = new Pt2(0, 0); // Position of the torpedo being checked, reused by moveFwd().
 
-  static final long clearTime = 10000; // Time until dissipation of a pulse.
+  static final long clearTime = 10000 * GameClock.MS; // Time until dissipation of a pulse.
 
   // whether pulse has made contact (and destroyed) a TorpedoGroup yet.
   // Pulses can only destroy one torpedo group at a time.
   private boolean contactedTG = false;
   boolean pendingRemove = false; // Whether the pulse needs to be removed.
+  private long clearTimer;       // Timer for dissipation of the pulse.
 
-  private List<TorpedoGroup> targetTGs; // Possible target TorpedoGroups.
+  private long[] targets = new long[8]; // Handles of the possible target TorpedoGroups.
+  private int targetCt = 0;
+  private final ArrayList<TorpedoGroup> inRangeTGs = new ArrayList<>(); // Groups found in range by a clearall pulse.
+  private static final Comparator<TorpedoGroup> byIdxPos = Comparator.comparingInt(tg -> tg.idxPos);
 
   private int type = NORMAL;
 
@@ -30,16 +37,54 @@ class Pulse {
   static final int CLEARALL = 1;
 
   /*
-   * Description: Creates a new pulse.
+   * Description: Sets up a pulse taken from the pool.
    * Parameters: p: Center of the pulse
    *             g: Reference to the game object.
-   * Return: (none)
+   *             now: Current game time, in ns.
+   * Return: this.
    */
-  Pulse(Pt2 p, Game g) {
+  Pulse init(Pt2 p, Game g, long now) {
     game = g;
-    center = new Pt2(p);
-    startTime = System.currentTimeMillis();
+    center.set(p);
+    startTime = now;
+    rad = 0;
+    prevRad = 0;
+    contactedTG = false;
+    pendingRemove = false;
+    type = NORMAL;
+    clearTimer = game.timers.schedule(startTime + clearTime + 1, this, 0);
     game.hShip.updateAllMatchCts(true, this);
+    return this;
+  }
+
+  /*
+   * Description: Cancels the dissipation timer and forgets the targets as the pulse goes
+   * back into the pool.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void recycle() {
+    cancelTimer();
+    targetCt = 0;
+  }
+
+  /*
+   * Description: Marks the pulse for removal when it dissipates.
+   * Parameters: kind: Unused; the pulse only has one timer.
+   *             now: Current game time, in ns.
+   * Return: (none)
+   */
+  public void onTimer(int kind, long now) {
+    pendingRemove = true;
+  }
+
+  /*
+   * Description: Cancels the dissipation timer of a pulse that is removed early.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void cancelTimer() {
+    game.timers.cancel(clearTimer);
   }
 
 
@@ -49,8 +94,7 @@ class Pulse {
    * Return: Whether the point is in range.
    */
   boolean inRange(Pt2 pt) {
-    Pt2 toCenter = pt.diff(center);
-    return toCenter.magn() < rad;
+    return pt.dist(center) < rad;
   }
 
   /*
@@ -61,112 +105,136 @@ class Pulse {
   boolean checkFullMatch() {
     boolean matches = false;
 
-    targetTGs = new ArrayList<>();
-    synchronized (game.tGroups) {
-      // Loop through all TorpedoGroups
-      StringBuilder pulseStr = game.hShip.getActivePulseStr();
-      for (int s = 0; s < pulseStr.length(); s++) {
-        String sequence = pulseStr.substring(s);
-        // Check if any substring matches the string
-        List<TorpedoGroup> newTGs = game.tGroups.get(sequence);
-        if (newTGs != null) { // Add torpedo groups to the list of possible targets.
-          for (TorpedoGroup tg : newTGs) {
-            targetTGs.add(tg);
-            tg.matchCt = tg.seq.length(); // update to fully matched
-          }
-          matches = true;
-
-        }
+    targetCt = 0;
+    SeqIndex idx = game.tGroups;
+    // Loop through the ends of the pulse sequence that are sequences of TorpedoGroups, longest first.
+    // The index's matcher already follows the pulse sequence, so this is a walk down its suffix links.
+    for (int k = idx.nextFullMatch(0); k != SeqIndex.NONE; k = idx.nextFullMatch(k + 1)) {
+      List<TorpedoGroup> newTGs = idx.fullMatchAt(k);
+      // Add torpedo groups to the list of possible targets.
+      for (int i = 0; i < newTGs.size(); i++) {
+        TorpedoGroup tg = newTGs.get(i);
+        if (targetCt == targets.length) targets = Arrays.copyOf(targets, targetCt * 2);
+        targets[targetCt++] = tg.serial;
+        tg.setMatchCt(tg.seq.length()); // update to fully matched
       }
+      matches = true;
     }
     return matches;
   }
 
   /*
    * Description: Updates the position of the pulse.
-   * Parameters: bv: BattleView information.
-   *             delta: Time elapsed, in ms, since the last update.
+   * Parameters: vp: Viewport of the game.
+   *             now: Current game time, in ns.
+   *             delta: Simulation time step, in ns.
    * Return: Whether the Pulse should be removed.
    */
-  boolean moveFwd(BattleView bv, long delta) {
+  boolean moveFwd(Viewport vp, long now, long delta) {
+    // Remove if pending or dissipated
     if (pendingRemove) return true;
-    // Remove if pending
-    // Remove if dissipated
-    if (System.currentTimeMillis() - startTime > Pulse.clearTime) {
-      return true;
-    }
     // Remove if clearall pulse has cleared everything
-    if (type == CLEARALL && !bv.inView(new Pt2(rad, rad))
+    if (type == CLEARALL && !vp.inView(rad, rad)
     && game.tGroups.size() == 0) {
       game.aWave.shipsLeft = 0;
       return true;
     }
 
     // Do not pulse items far off-screen.
-    boolean pulseActive = rad < Math.max(bv.viewD.x, bv.viewD.y);
+    boolean pulseActive = rad < Math.max(vp.viewD.x, vp.viewD.y);
 
     if (type == CLEARALL) { // clearall pulses pulse everything in range - TGs with/without torpedoes/enemy ships
-      synchronized (game.tGroups) {
-        for (List<TorpedoGroup> tglist : game.tGroups.values()) // loop through torpedo groups
-        for (TorpedoGroup tg : tglist) {
-          if (tg.torps.size() == 0) { // no torpedoes - only parent - lock parent
-            if (tg.parentShip != null) tg.parentShip.lock(this);
-            continue;
-          }
-          if (inRange(tg.torps.get(0).getPos()) && tg.locked != this) { // has torpedoes - lock torpedoes
-            game.stat.addCombo(tg.seq, game.waveCt); // add to combo here
-            tg.lock(this, tg.torps.get(0));
-          }
+      SeqIndex idx = game.tGroups;
+      List<TorpedoGroup> unnamed = idx.unnamed();
+      for (int i=0; i<unnamed.size(); i++) { // no torpedoes - only parent - lock parent
+        TorpedoGroup tg = unnamed.get(i);
+        if (tg.parentShip != null) tg.parentShip.lock(this, now);
+      }
+      // Groups whose first torpedo is in range, from the bodies near the pulse, in group order.
+      BodyStore bodies = game.bodies;
+      inRangeTGs.clear();
+      for (int k = game.grid.queryDisc(center.x, center.y, rad) - 1; k >= 0; k--) {
+        TxTorpedo t = bodies.torp[game.grid.result(k)];
+        if (t != null && t.group.torps.get(0) == t) inRangeTGs.add(t.group);
+      }
+      inRangeTGs.sort(byIdxPos);
+      for (int i=0; i<inRangeTGs.size(); i++) {
+        TorpedoGroup tg = inRangeTGs.get(i);
+        if (!tg.lockedBy(this)) { // has torpedoes - lock torpedoes
+          game.stat.addCombo(tg.seq, game.waveCt); // add to combo here
+          tg.lock(this, tg.torps.get(0), now);
         }
       }
+      inRangeTGs.clear();
     }
 
     // Check if any targets are in range
-    if (targetTGs != null && pulseActive && !contactedTG) {
-      for (TorpedoGroup tg : targetTGs) {
+    if (pulseActive && !contactedTG) {
+      for (int t=0; t<targetCt; t++) {
+        TorpedoGroup tg = game.groups.get(targets[t]);
+        if (tg == null) continue; // Destroyed and gone since the match.
         TxTorpedo inRange = null;
         for (int i=0; i<tg.torps.size(); i++) { // loop through all torpedo groups in target
           TxTorpedo torp = tg.torps.get(i);
-          if (inRange(torp.getPos())) { // check in range
+          if (inRange(torp.getPos(torpPos))) { // check in range
             inRange = torp;
             break;
           }
         }
-        if (inRange != null && tg.locked != this) { // do not lock more than once, do not pulse more than one TorpedoGroup
+        if (inRange != null && !tg.lockedBy(this)) { // do not lock more than once, do not pulse more than one TorpedoGroup
           game.stat.addCombo(tg.seq, game.waveCt); // add combo here
           contactedTG = true;
-          tg.lock(this, inRange);
+          tg.lock(this, inRange, now);
         }
       }
     }
 
     // move pulse forward
-    rad += speed * delta / 1000;
+    prevRad = rad;
+    rad += speed * delta / GameClock.SEC;
     return false;
   }
 
   /*
-   * Description: Draws the current pulse.
+   * Description: Copies the pulse into a render snapshot.
+   * Parameters: s: Snapshot to write into.
+   * Return: (none)
+   */
+  void snapshot(RenderSnapshot s) {
+    int i = s.addPulse();
+    s.pulseX[i] = center.x;
+    s.pulseY[i] = center.y;
+    s.pulseRad[i] = rad;
+    s.pulsePrevRad[i] = prevRad;
+    s.pulseStart[i] = startTime;
+    s.pulseType[i] = type;
+  }
+
+  /*
+   * Description: Draws a pulse from a render snapshot.
    * Parameters: bv: BattleView object.
    *             _g: Graphics object to draw onto.
+   *             s: Snapshot to draw from.
+   *             idx: Index of the pulse in the snapshot.
    * Return: (none)
    */
-  void draw(BattleView bv, Graphics _g) {
-    long deltaT = System.currentTimeMillis() - startTime;
+  static void draw(BattleView bv, Graphics _g, RenderSnapshot s, int idx) {
+    long deltaT = s.renderTime - s.pulseStart[idx];
     if (deltaT > animTime) return;
     Graphics2D g = (Graphics2D) _g;
-    Pt2_i hsPos = bv.toScrPt(center);
-    int r = bv.scale(new Pt2(rad, 0)).x;
+    Pt2_i hsPos = bv.toScrPt(new Pt2(s.pulseX[idx], s.pulseY[idx]));
+    int r = bv.scale(new Pt2(s.pulsePrevRad[idx] + (s.pulseRad[idx] - s.pulsePrevRad[idx]) * s.alpha, 0)).x;
 
     // Create a vibrating string as a cool representation of the T3xt-pulse.
     Path2D wave = new Path2D.Double();
 
     int npt = (4+(int)3*r/5);               // Larger radius -> more points.
     double[] p = new double[npt*2+2];
-    double addturn = Math.random();         // Give the vibrating string an additional random turn.
+    SplittableRandom rnd = bv.game.rng.cosmetic;
+    double addturn = rnd.nextDouble();      // Give the vibrating string an additional random turn.
 
     for (int i=0; i<npt; i++) {
-      double rr=(0.9 + Math.random()*0.2)*r;  // Random radial perturbation
+      double rr=(0.9 + rnd.nextDouble()*0.2)*r;  // Random radial perturbation
       double a = 2*Math.PI*i/npt + addturn;   // The points are equally spaced angularly.
       p[i*2]  =hsPos.x + rr*Math.cos(a);
       p[i*2+1]=hsPos.y + rr*Math.sin(a);
@@ -186,7 +254,7 @@ class Pulse {
     int grey = 105 - (int) (105 * Math.min((double) deltaT / animTime, 1));
     g.setStroke(new BasicStroke(1.0f));
     Color red2 = new Color(255, grey, grey);
-    Color c = type==NORMAL ? new Color(grey, grey, grey) : red2;
+    Color c = s.pulseType[idx]==NORMAL ? new Color(grey, grey, grey) : red2;
     g.setColor(c);
     g.draw(wave);
   }
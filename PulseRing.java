@@ -0,0 +1,80 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: PulseRing class.
+// The active pulses of the home ship, oldest first, in a ring buffer that doubles when full.
+// Pulses are sent in order and dissipate after the same time, so they nearly always leave
+// from the front, which costs nothing. The ring belongs to the simulation thread: it is
+// written and read only by the ticks, and the paint reads the render snapshot instead,
+// so no locks are needed.
+
+import java.util.*;
+
+class PulseRing {
+  private Pulse[] buf = new Pulse[16]; // Capacity is a power of 2.
+  private int head = 0;                // Position of the oldest pulse in buf.
+  private int size = 0;
+
+  /*
+   * Description: Returns the number of pulses.
+   * Parameters: (none)
+   * Return: Number of pulses.
+   */
+  int size() {
+    return size;
+  }
+
+  /*
+   * Description: Returns a pulse by age.
+   * Parameters: i: Index, from 0 (oldest) to size()-1 (newest).
+   * Return: Pulse at that index.
+   */
+  Pulse get(int i) {
+    return buf[(head + i) & (buf.length - 1)];
+  }
+
+  /*
+   * Description: Adds a pulse as the newest one, growing the buffer if it is full.
+   * Parameters: p: Pulse to add.
+   * Return: (none)
+   */
+  void add(Pulse p) {
+    if (size == buf.length) {
+      Pulse[] nb = new Pulse[buf.length * 2];
+      for (int i = 0; i < size; i++) nb[i] = get(i);
+      buf = nb;
+      head = 0;
+    }
+    buf[(head + size) & (buf.length - 1)] = p;
+    size++;
+  }
+
+  /*
+   * Description: Removes a pulse, keeping the others in order. Removing the oldest pulse
+   * only moves the head; other pulses after it are moved down by one.
+   * Parameters: i: Index of the pulse to remove.
+   * Return: (none)
+   */
+  void remove(int i) {
+    int mask = buf.length - 1;
+    if (i == 0) {
+      buf[head] = null;
+      head = (head + 1) & mask;
+    }
+    else {
+      for (int k = i; k < size - 1; k++) buf[(head + k) & mask] = buf[(head + k + 1) & mask];
+      buf[(head + size - 1) & mask] = null;
+    }
+    size--;
+  }
+
+  /*
+   * Description: Removes every pulse.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void clear() {
+    Arrays.fill(buf, null);
+    head = 0;
+    size = 0;
+  }
+}
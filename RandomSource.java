@@ -0,0 +1,31 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: RandomSource class. Per-session seeded random numbers.
+// Gameplay and cosmetic randomness come from separate streams, so that the same seed
+// always replays the same waves no matter how often (or whether) the game is drawn.
+
+import java.util.*;
+
+class RandomSource {
+  final long seed; // Seed the session was created with.
+
+  // Random numbers that affect the simulation (word order, flight paths, launches).
+  // Only used by the simulation tick.
+  final SplittableRandom gameplay;
+
+  // Random numbers for visual effects only (explosions, pulse wavefronts, shaking).
+  // Only used while painting.
+  final SplittableRandom cosmetic;
+
+  /*
+   * Description: Creates the random streams for a session.
+   * Parameters: s: Seed for the session.
+   * Return: (none)
+   */
+  RandomSource(long s) {
+    seed = s;
+    SplittableRandom root = new SplittableRandom(s);
+    gameplay = root.split();
+    cosmetic = root.split();
+  }
+}
@@ -0,0 +1,175 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: RenderSnapshot, ShipDebug and SnapshotExchange classes.
+// A RenderSnapshot is a compact copy of everything the BattleView draws, written by the
+// simulation thread after its ticks. The SnapshotExchange hands finished snapshots to the
+// painting thread, so painting never reads live game objects and never takes their locks.
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+class RenderSnapshot {
+  volatile long seq = 0; // Publication number; 0 if never published.
+  long simTime;       // Game time, in ns, of the latest simulation tick.
+  double alpha = 1;   // Fraction of a tick elapsed since the latest simulation state, for interpolation.
+  long renderTime;    // Game time, in ns, of the interpolated state being drawn.
+
+  // Home ship.
+  double hsX, hsY;          // Position, in BSU.
+  double hsAng, hsPrevAng;  // Orientation at the latest and previous ticks.
+  int hsHealth;
+  long hsExplodeTime;       // Game time of explosion start, or -1.
+  long hsDamageTime;        // Game time of the last torpedo hit, or -1.
+  String pulseStr = "";     // Active pulse sequence.
+  String comboStr = "";     // Current combo.
+
+  // Attack wave.
+  int waveN;
+  long waveStart;           // Game time, in ns, of creation of the attack wave.
+
+  // Pulses.
+  int pulseCt = 0;
+  double[] pulseX = new double[8], pulseY = new double[8];
+  double[] pulseRad = new double[8], pulsePrevRad = new double[8];
+  long[] pulseStart = new long[8];
+  int[] pulseType = new int[8];
+
+  // Enemy ships.
+  int shipCt = 0;
+  double[] shipX = new double[16], shipY = new double[16], shipPrevX = new double[16], shipPrevY = new double[16];
+  double[] shipAng = new double[16]; // Heading towards the steering target.
+  long[] shipStart = new long[16];   // Game time at which the ship starts moving.
+  long[] shipExplodeTime = new long[16]; // Game time of explosion, or -1 if not exploded.
+  ShipDebug[] shipDbg = new ShipDebug[16]; // Copied flight path and steering state, only when G.DEBUG is set.
+
+  // Text torpedoes.
+  int torpCt = 0;
+  double[] torpX = new double[64], torpY = new double[64], torpPrevX = new double[64], torpPrevY = new double[64];
+  double[] torpAng = new double[64];
+  char[] torpCh = new char[64];
+  boolean[] torpLit = new boolean[64];      // Whether the torpedo is matched by the pulse sequence.
+  boolean[] torpExploded = new boolean[64]; // Whether the torpedo's group has been destroyed.
+
+  /*
+   * Description: Empties the snapshot for rewriting. The arrays are kept for reuse.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void clear() {
+    pulseCt = 0;
+    shipCt = 0;
+    torpCt = 0;
+    if (G.DEBUG) Arrays.fill(shipDbg, null);
+  }
+
+  /*
+   * Description: Makes room for one more pulse.
+   * Parameters: (none)
+   * Return: Index of the new pulse.
+   */
+  int addPulse() {
+    if (pulseCt == pulseX.length) {
+      int n = pulseCt * 2;
+      pulseX = Arrays.copyOf(pulseX, n);
+      pulseY = Arrays.copyOf(pulseY, n);
+      pulseRad = Arrays.copyOf(pulseRad, n);
+      pulsePrevRad = Arrays.copyOf(pulsePrevRad, n);
+      pulseStart = Arrays.copyOf(pulseStart, n);
+      pulseType = Arrays.copyOf(pulseType, n);
+    }
+    return pulseCt++;
+  }
+
+  /*
+   * Description: Makes room for one more enemy ship.
+   * Parameters: (none)
+   * Return: Index of the new ship.
+   */
+  int addShip() {
+    if (shipCt == shipX.length) {
+      int n = shipCt * 2;
+      shipX = Arrays.copyOf(shipX, n);
+      shipY = Arrays.copyOf(shipY, n);
+      shipPrevX = Arrays.copyOf(shipPrevX, n);
+      shipPrevY = Arrays.copyOf(shipPrevY, n);
+      shipAng = Arrays.copyOf(shipAng, n);
+      shipStart = Arrays.copyOf(shipStart, n);
+      shipExplodeTime = Arrays.copyOf(shipExplodeTime, n);
+      shipDbg = Arrays.copyOf(shipDbg, n);
+    }
+    return shipCt++;
+  }
+
+  /*
+   * Description: Makes room for one more text torpedo.
+   * Parameters: (none)
+   * Return: Index of the new torpedo.
+   */
+  int addTorp() {
+    if (torpCt == torpX.length) {
+      int n = torpCt * 2;
+      torpX = Arrays.copyOf(torpX, n);
+      torpY = Arrays.copyOf(torpY, n);
+      torpPrevX = Arrays.copyOf(torpPrevX, n);
+      torpPrevY = Arrays.copyOf(torpPrevY, n);
+      torpAng = Arrays.copyOf(torpAng, n);
+      torpCh = Arrays.copyOf(torpCh, n);
+      torpLit = Arrays.copyOf(torpLit, n);
+      torpExploded = Arrays.copyOf(torpExploded, n);
+    }
+    return torpCt++;
+  }
+}
+
+class ShipDebug {
+  double[] pathX, pathY;       // Flight path points, in BSU.
+  java.awt.Color pathClr;      // Colour of the flight path.
+  double frac;                 // Path fraction at the latest tick.
+  double fracX, fracY;         // Target position at that path fraction.
+  boolean exploded;
+  double dist;                 // Distance from the ship to its target position at the render time.
+  int steer;                   // Steering state (BodyStore.STEER_*).
+  int matchCt;                 // Characters of the ship's sequence matched.
+}
+
+class SnapshotExchange {
+  // Triple buffering: the writer fills back, the reader draws front, and ready holds the
+  // newest finished snapshot. Publishing and acquiring only swap references, so neither
+  // side ever waits for the other or sees a half-written snapshot.
+  private RenderSnapshot back = new RenderSnapshot();   // Owned by the simulation thread.
+  private RenderSnapshot front = new RenderSnapshot();  // Owned by the painting thread.
+  private final AtomicReference<RenderSnapshot> ready = new AtomicReference<>(new RenderSnapshot());
+  private long nextSeq = 1;
+
+  /*
+   * Description: Starts writing a new snapshot. Only called by the simulation thread.
+   * Parameters: (none)
+   * Return: Empty snapshot to fill in.
+   */
+  RenderSnapshot beginWrite() {
+    back.clear();
+    return back;
+  }
+
+  /*
+   * Description: Publishes the snapshot returned by beginWrite(). Only called by the simulation thread.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void publish() {
+    back.seq = nextSeq++;
+    back = ready.getAndSet(back);
+  }
+
+  /*
+   * Description: Returns the newest published snapshot. Only called by the painting thread.
+   * The snapshot stays valid until the next call.
+   * Parameters: (none)
+   * Return: Newest snapshot, or an empty one (seq 0) if nothing has been published yet.
+   */
+  RenderSnapshot latest() {
+    if (ready.get().seq > front.seq)
+      front = ready.getAndSet(front);
+    return front;
+  }
+}
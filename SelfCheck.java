@@ -0,0 +1,490 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: SelfCheck class.
+// Randomised checks of the game's data structures against simple reference versions
+// (java.util collections or brute-force searches), run by "java Headless -check 1".
+// Each check replays a seeded stream of operations and compares every result with
+// the reference, so a failure can be reproduced with the same seed.
+
+import java.util.*;
+
+class SelfCheck {
+
+  /*
+   * Description: Runs every check and prints whether it passed.
+   * Parameters: seed: Seed of the random operation streams.
+   * Return: Number of checks that failed.
+   */
+  static int runAll(long seed) {
+    int failed = 0;
+    failed += run("KeyQueue", () -> keyQueue(new SplittableRandom(seed)));
+    failed += run("TimerWheel", () -> timerWheel(new SplittableRandom(seed)));
+    failed += run("SpatialGrid", () -> spatialGrid(new SplittableRandom(seed)));
+    failed += run("PulseRing", () -> pulseRing(new SplittableRandom(seed)));
+    failed += run("GroupArena", () -> groupArena(new SplittableRandom(seed)));
+    failed += run("TopWords", () -> topWords(new SplittableRandom(seed)));
+    failed += run("FocusIndex", () -> focusIndex(seed));
+    failed += run("SeqIndex matcher", () -> seqMatcher(new SplittableRandom(seed)));
+    return failed;
+  }
+
+  /*
+   * Description: Runs one check and prints whether it passed.
+   * Parameters: name: Name of the check.
+   *             check: Check to run. Throws an IllegalStateException on failure.
+   * Return: 1 if the check failed, otherwise 0.
+   */
+  private static int run(String name, Runnable check) {
+    try {
+      check.run();
+      G.sysprtf("%s: ok\n", name);
+      return 0;
+    } catch (RuntimeException e) {
+      G.sysprtf("%s: FAILED: %s\n", name, e.getMessage());
+      return 1;
+    }
+  }
+
+  /*
+   * Description: Fails the running check if a condition does not hold.
+   * Parameters: ok: Condition to check.
+   *             fmt, args: Format string and arguments describing the failure.
+   * Return: (none)
+   */
+  private static void expect(boolean ok, String fmt, Object... args) {
+    if (!ok) throw new IllegalStateException(String.format(fmt, args));
+  }
+
+  /*
+   * Description: Checks the KeyQueue against an ArrayDeque on a random stream of offers,
+   * polls and clears, then streams keystrokes through it from a second thread.
+   * Parameters: r: Random source of the operations.
+   * Return: (none)
+   */
+  static void keyQueue(SplittableRandom r) {
+    KeyQueue q = new KeyQueue(8);
+    ArrayDeque<long[]> ref = new ArrayDeque<>(); // Character and time of each keystroke.
+    long t = 0;
+    for (int op = 0; op < 100000; op++) {
+      int k = r.nextInt(10);
+      if (k < 5) {
+        char ch = (char) ('a' + r.nextInt(26));
+        t += r.nextInt(3);
+        boolean added = q.offer(ch, t);
+        expect(added == (ref.size() < 8), "op %d: offer with %d waiting returned %b", op, ref.size(), added);
+        if (added) ref.add(new long[] {ch, t});
+      }
+      else if (k < 9) {
+        long[] e = ref.poll();
+        long pt = q.peekTime();
+        expect(pt == (e == null ? Long.MAX_VALUE : e[1]), "op %d: peekTime %d", op, pt);
+        if (e != null) {
+          char ch = q.poll();
+          expect(ch == e[0], "op %d: polled '%c', expected '%c'", op, ch, (char) e[0]);
+        }
+      }
+      else {
+        q.clear();
+        ref.clear();
+      }
+      expect(q.isEmpty() == ref.isEmpty(), "op %d: isEmpty %b with %d waiting", op, q.isEmpty(), ref.size());
+    }
+
+    // One producer and one consumer thread: every keystroke arrives once, in order.
+    KeyQueue sq = new KeyQueue(16);
+    int n = 200000;
+    Thread producer = new Thread(() -> {
+      for (int i = 0; i < n; i++)
+        while (!sq.offer((char) ('a' + i % 26), i)) Thread.yield();
+    });
+    producer.start();
+    for (int i = 0; i < n; i++) {
+      while (sq.peekTime() == Long.MAX_VALUE) Thread.yield();
+      long pt = sq.peekTime();
+      char ch = sq.poll();
+      expect(pt == i && ch == 'a' + i % 26, "keystroke %d arrived as '%c' at %d", i, ch, pt);
+    }
+    try {
+      producer.join();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+    expect(sq.isEmpty(), "keystrokes left after the producer finished");
+  }
+
+  /*
+   * Description: Checks the TimerWheel against a map of due times on a random stream of
+   * schedules, cancels (also of fired and cancelled timers) and advances. Due times reach
+   * every level of the wheel, and some timers schedule another one when they fire.
+   * Parameters: r: Random source of the operations.
+   * Return: (none)
+   */
+  static void timerWheel(SplittableRandom r) {
+    long tick = 10 * GameClock.MS;
+    long start = 12345;
+    TimerWheel w = new TimerWheel(tick, start);
+    HashMap<Integer, Long> due = new HashMap<>();     // Fire time of each scheduled timer, by kind.
+    HashMap<Integer, Long> handles = new HashMap<>(); // Handle of every timer ever scheduled, by kind.
+    ArrayList<long[]> fired = new ArrayList<>();      // Kind and time of the timers fired by an advance.
+    long[] now = {start};                             // Time of the last advance.
+    int[] kinds = {0};                                // Kinds handed out so far.
+    TimerListener[] l = new TimerListener[1];
+    l[0] = (kind, t) -> {
+      fired.add(new long[] {kind, t});
+      if (kind % 3 == 0) { // Schedule a follow-up timer from inside the listener.
+        int k = ++kinds[0];
+        long when = t + r.nextInt(3) * tick;
+        due.put(k, fireTime(when, t, start, tick));
+        handles.put(k, w.schedule(when, l[0], k));
+      }
+    };
+
+    for (int op = 0; op < 20000; op++) {
+      int k = r.nextInt(10);
+      if (k < 5) {
+        int d = r.nextInt(10);
+        long delay = d < 6 ? r.nextLong(100 * tick) : d < 9 ? r.nextLong(10000 * tick) : r.nextLong(500000 * tick);
+        long when = now[0] + delay - r.nextLong(2 * tick);
+        int kind = ++kinds[0];
+        long h = w.schedule(when, l[0], kind);
+        expect(h != 0, "op %d: handle 0", op);
+        due.put(kind, fireTime(when, now[0], start, tick));
+        handles.put(kind, h);
+      }
+      else if (k < 7) {
+        if (kinds[0] == 0) continue;
+        int kind = 1 + r.nextInt(kinds[0]);
+        boolean cancelled = w.cancel(handles.get(kind));
+        expect(cancelled == due.containsKey(kind), "op %d: cancel of timer %d returned %b", op, kind, cancelled);
+        due.remove(kind);
+      }
+      else {
+        long adv = r.nextInt(20) == 0 ? r.nextLong(100000 * tick) : r.nextLong(1000 * tick);
+        now[0] += adv;
+        fired.clear();
+        int n = w.advance(now[0]);
+        expect(n == fired.size(), "op %d: advance returned %d for %d timers fired", op, n, fired.size());
+        long last = Long.MIN_VALUE;
+        for (long[] f : fired) {
+          Long t = due.remove((int) f[0]);
+          expect(t != null, "op %d: timer %d fired while not scheduled", op, f[0]);
+          expect(f[1] == t, "op %d: timer %d fired at %d, due at %d", op, f[0], f[1], t);
+          expect(f[1] >= last, "op %d: timer %d fired out of order", op, f[0]);
+          last = f[1];
+        }
+        for (Map.Entry<Integer, Long> e : due.entrySet())
+          expect(e.getValue() > now[0], "op %d: timer %d due at %d has not fired by %d", op, e.getKey(), e.getValue(), now[0]);
+      }
+      expect(w.size() == due.size(), "op %d: size %d, expected %d", op, w.size(), due.size());
+    }
+  }
+
+  /*
+   * Description: Checks SpatialGrid disc queries against a search of every slot, on
+   * bodies spread near the home ship and far out in BattleSpace, as bodies are added,
+   * freed and compacted away.
+   * Parameters: r: Random source of the operations.
+   * Return: (none)
+   */
+  static void spatialGrid(SplittableRandom r) {
+    BodyStore b = new BodyStore();
+    SpatialGrid grid = new SpatialGrid();
+    ArrayList<Integer> ids = new ArrayList<>();
+    for (int round = 0; round < 300; round++) {
+      for (int k = r.nextInt(40); k > 0; k--) {
+        double range = r.nextInt(4) == 0 ? 50 : 1.5;
+        ids.add(b.add(TxTorpedo.RELEASED, r.nextDouble(-range, range), r.nextDouble(-range, range)));
+      }
+      for (int k = r.nextInt(30); k > 0 && !ids.isEmpty(); k--)
+        b.free(ids.remove(r.nextInt(ids.size())));
+      if (r.nextBoolean()) b.compact();
+      grid.rebuild(b);
+      for (int q = 0; q < 20; q++) {
+        double cx = r.nextDouble(-2, 2), cy = r.nextDouble(-2, 2);
+        double rad = r.nextInt(10) == 0 ? r.nextDouble(3) : r.nextDouble(0.3);
+        int ct = grid.queryDisc(cx, cy, rad);
+        TreeSet<Integer> found = new TreeSet<>();
+        for (int k = 0; k < ct; k++)
+          expect(found.add(grid.result(k)), "round %d: slot %d found twice", round, grid.result(k));
+        TreeSet<Integer> all = new TreeSet<>();
+        for (int i = 0; i < b.n; i++)
+          if (G.dist(b.x[i], b.y[i], cx, cy) < rad) all.add(i);
+        expect(found.equals(all), "round %d: disc (%.3f, %.3f) r %.3f found %s, expected %s",
+            round, cx, cy, rad, found, all);
+      }
+    }
+  }
+
+  /*
+   * Description: Checks the PulseRing against an ArrayList on a random stream of adds,
+   * removals (mostly of the oldest pulse, as in play) and clears, growing it past its
+   * initial capacity and wrapping its head round.
+   * Parameters: r: Random source of the operations.
+   * Return: (none)
+   */
+  static void pulseRing(SplittableRandom r) {
+    PulseRing ring = new PulseRing();
+    ArrayList<Pulse> ref = new ArrayList<>();
+    for (int op = 0; op < 100000; op++) {
+      int k = r.nextInt(1000);
+      if (k < 520) {
+        Pulse p = new Pulse();
+        ring.add(p);
+        ref.add(p);
+      }
+      else if (k < 999) {
+        if (ref.isEmpty()) continue;
+        int i = r.nextInt(4) == 0 ? r.nextInt(ref.size()) : 0;
+        ring.remove(i);
+        ref.remove(i);
+      }
+      else {
+        ring.clear();
+        ref.clear();
+      }
+      expect(ring.size() == ref.size(), "op %d: size %d, expected %d", op, ring.size(), ref.size());
+      for (int i = 0; i < ref.size(); i++)
+        expect(ring.get(i) == ref.get(i), "op %d: wrong pulse at %d of %d", op, i, ref.size());
+    }
+  }
+
+  /*
+   * Description: Checks GroupArena handles on a random stream of acquires and releases:
+   * every handle is new, looks up its group while the group is live and nothing once it
+   * has been released, even after its slot has been reused, and spare groups are used
+   * before new ones are made.
+   * Parameters: r: Random source of the operations.
+   * Return: (none)
+   */
+  static void groupArena(SplittableRandom r) {
+    GroupArena arena = new GroupArena();
+    TorpedoGroup[] spares = {new TorpedoGroup(), new TorpedoGroup(), new TorpedoGroup()};
+    List<TorpedoGroup> spareList = Arrays.asList(spares);
+    arena.stock(Arrays.copyOfRange(spares, 0, 2));
+    arena.stock(Arrays.copyOfRange(spares, 2, 3)); // Kept along with the first two.
+    expect(arena.available() == spares.length, "%d groups available, not %d", arena.available(), spares.length);
+    ArrayList<TorpedoGroup> live = new ArrayList<>();
+    ArrayList<Long> liveHandles = new ArrayList<>();
+    HashSet<Long> handles = new HashSet<>();  // Every handle handed out.
+    ArrayList<Long> dead = new ArrayList<>(); // Handles of released groups.
+    expect(arena.get(GroupArena.NONE) == null, "NONE looks up a group");
+    for (int k = 0; k < spares.length; k++) {
+      TorpedoGroup tg = arena.acquire();
+      expect(spareList.contains(tg) && !live.contains(tg), "group %d is not a spare", k);
+      live.add(tg);
+      liveHandles.add(tg.serial);
+      handles.add(tg.serial);
+    }
+    for (int op = 0; op < 100000; op++) {
+      if (live.isEmpty() || r.nextInt(100) < 50) {
+        TorpedoGroup tg = arena.acquire();
+        expect(tg.serial != GroupArena.NONE && handles.add(tg.serial), "op %d: handle %x reused", op, tg.serial);
+        expect(!live.contains(tg), "op %d: live group acquired again", op);
+        live.add(tg);
+        liveHandles.add(tg.serial);
+      }
+      else {
+        int i = r.nextInt(live.size());
+        TorpedoGroup tg = live.get(i);
+        arena.release(tg);
+        expect(tg.serial == GroupArena.NONE, "op %d: released group keeps its handle", op);
+        arena.release(tg); // Releasing an idle group has no effect.
+        dead.add(liveHandles.get(i));
+        live.set(i, live.get(live.size() - 1));
+        live.remove(live.size() - 1);
+        liveHandles.set(i, liveHandles.get(liveHandles.size() - 1));
+        liveHandles.remove(liveHandles.size() - 1);
+      }
+      for (int k = 0; k < 3; k++) {
+        if (!live.isEmpty()) {
+          int i = r.nextInt(live.size());
+          expect(arena.get(liveHandles.get(i)) == live.get(i), "op %d: live handle %x lost its group", op, liveHandles.get(i));
+        }
+        if (!dead.isEmpty()) {
+          long h = dead.get(r.nextInt(dead.size()));
+          expect(arena.get(h) == null, "op %d: released handle %x still looks up a group", op, h);
+        }
+      }
+    }
+  }
+
+  /*
+   * Description: Checks TopWords against exact counts in a HashMap, on skewed streams of
+   * words that fit in its counters and of words that do not. Counts must be exact with
+   * no error while they fit, and afterwards bound the true counts from above by no more
+   * than their errors, with every word above total/CAPACITY still counted. The many
+   * evictions also check that the table still finds every counted word.
+   * Parameters: r: Random source of the operations.
+   * Return: (none)
+   */
+  static void topWords(SplittableRandom r) {
+    for (int vocab : new int[] {TopWords.CAPACITY, 1000}) {
+      TopWords tw = new TopWords();
+      HashMap<String, Integer> exact = new HashMap<>();
+      String[] words = new String[vocab];
+      for (int i = 0; i < vocab; i++) words[i] = "w" + Integer.toString(i * 7919, 36);
+      for (int op = 1; op <= 50000; op++) {
+        // Skewed towards the first words, like the words of a phrase.
+        String w = words[(int) (vocab * Math.pow(r.nextDouble(), 3))];
+        tw.add(w);
+        exact.merge(w, 1, Integer::sum);
+        if (op % 97 != 0 && op != 50000) continue;
+
+        List<FreqData> top = tw.top(TopWords.CAPACITY);
+        HashSet<String> seen = new HashSet<>();
+        for (int i = 0; i < top.size(); i++) {
+          FreqData d = top.get(i);
+          expect(seen.add(d.w), "op %d: %s counted twice", op, d.w);
+          int c = exact.getOrDefault(d.w, 0);
+          expect(d.ct >= c && d.ct - d.err <= c, "op %d: %s counted %d with error %d, true count %d", op, d.w, d.ct, d.err, c);
+          if (exact.size() <= TopWords.CAPACITY)
+            expect(d.ct == c && d.err == 0, "op %d: %s counted %d with error %d, exactly %d", op, d.w, d.ct, d.err, c);
+          if (i > 0) {
+            FreqData p = top.get(i - 1);
+            expect(p.ct > d.ct || p.ct == d.ct && p.w.compareTo(d.w) > 0, "op %d: %s ranked above %s", op, p.w, d.w);
+          }
+        }
+        for (Map.Entry<String, Integer> e : exact.entrySet())
+          expect(e.getValue() <= op / TopWords.CAPACITY || seen.contains(e.getKey()),
+              "op %d: %s seen %d times is not counted", op, e.getKey(), e.getValue());
+      }
+    }
+  }
+
+  /*
+   * Description: Checks the FocusIndex against a scan of every group, as getFocused did
+   * before the index, after every tick of games played by a fast bot that makes many
+   * typos, so that match counts often rise and drop back.
+   * Parameters: seed: Seed of the first game.
+   * Return: (none)
+   */
+  static void focusIndex(long seed) {
+    List<String> phrases = Game.loadPhrases();
+    for (int n = 0; n < 3; n++) {
+      Game game = new Game(new GameClock(true), phrases, seed + n);
+      BotTypist bot = new BotTypist(8, 0.2, seed + n);
+      for (int tick = 0; tick < 30000; tick++) {
+        bot.poll(game);
+        game.clock.advance(Game.TICK_NS);
+        boolean done = game.advance() || game.isLost();
+        Pt2 p = game.hShip.getPos();
+        TorpedoGroup expected = null;
+        int bestLeft = 0;
+        double minDist = 0;
+        for (int i = 0; i < game.tGroups.size(); i++) {
+          TorpedoGroup tg = game.tGroups.get(i);
+          int left = tg.seq.length() - tg.matchCt;
+          double dist = tg.firstDist(p);
+          if (expected == null || left < bestLeft || left == bestLeft && dist < minDist) {
+            expected = tg;
+            bestLeft = left;
+            minDist = dist;
+          }
+        }
+        TorpedoGroup got = game.tGroups.focus().focused(p);
+        expect(got == expected, "game %d tick %d: focused \"%s\", expected \"%s\"", n, tick,
+            got == null ? null : got.seq, expected == null ? null : expected.seq);
+        if (done) break;
+      }
+    }
+  }
+
+  /*
+   * Description: Checks the SeqIndex matcher (match lengths and full matches) and its
+   * exact counts against string comparisons on a random stream of groups coming and going
+   * and of pulse string changes (appends, removals of the first character, clears and
+   * restarts). Words over a small alphabet overlap a lot, so the suffix links are
+   * exercised, and new words keep adding trie nodes mid-match.
+   * Parameters: r: Random source of the operations.
+   * Return: (none)
+   */
+  static void seqMatcher(SplittableRandom r) {
+    SeqIndex idx = new SeqIndex();
+    StringBuilder text = new StringBuilder();
+    ArrayList<TorpedoGroup> live = new ArrayList<>();
+    idx.matchOn(text);
+    for (int op = 0; op < 50000; op++) {
+      int k = r.nextInt(100);
+      if (k < 10) {
+        TorpedoGroup tg = new TorpedoGroup();
+        tg.seq = randomWord(r, 1 + r.nextInt(6));
+        idx.add(tg);
+        live.add(tg);
+      }
+      else if (k < 18) {
+        if (live.isEmpty()) continue;
+        idx.remove(live.remove(r.nextInt(live.size())));
+      }
+      else if (k < 58) {
+        text.append(randomWord(r, 1));
+        idx.matchAppended();
+      }
+      else if (k < 97) {
+        if (text.length() == 0) continue;
+        text.deleteCharAt(0);
+        idx.matchDroppedFirst();
+      }
+      else if (k < 99) {
+        text.setLength(0);
+        idx.matchCleared();
+      }
+      else {
+        text = new StringBuilder(randomWord(r, r.nextInt(8)));
+        idx.matchOn(text);
+      }
+
+      String w = randomWord(r, r.nextInt(7));
+      int n = 0;
+      for (TorpedoGroup tg : live) if (w.length() > 0 && tg.seq.equals(w)) n++;
+      expect(idx.count(w) == n && idx.contains(w) == (n > 0), "op %d: count of \"%s\" is %d, expected %d", op, w, idx.count(w), n);
+
+      String t = text.toString();
+      for (TorpedoGroup tg : live) {
+        int m = 0; // Longest end of the text that starts the sequence.
+        for (int len = Math.min(t.length(), tg.seq.length()); len > 0 && m == 0; len--)
+          if (t.endsWith(tg.seq.substring(0, len))) m = len;
+        int got = idx.matchLen(tg);
+        expect(got == m, "op %d: match length of \"%s\" on \"%s\" is %d, expected %d", op, tg.seq, t, got, m);
+      }
+
+      // Full matches: the groups whose whole sequence ends the text, longest first.
+      ArrayList<HashSet<TorpedoGroup>> expected = new ArrayList<>();
+      for (int len = t.length(); len > 0; len--) {
+        HashSet<TorpedoGroup> at = new HashSet<>();
+        for (TorpedoGroup tg : live)
+          if (tg.seq.length() == len && t.endsWith(tg.seq)) at.add(tg);
+        if (!at.isEmpty()) expected.add(at);
+      }
+      ArrayList<HashSet<TorpedoGroup>> found = new ArrayList<>();
+      for (int f = idx.nextFullMatch(0); f != SeqIndex.NONE; f = idx.nextFullMatch(f + 1))
+        found.add(new HashSet<>(idx.fullMatchAt(f)));
+      expect(found.equals(expected), "op %d: %d full matches on \"%s\", expected %d", op, found.size(), t, expected.size());
+    }
+  }
+
+  /*
+   * Description: Makes a random word over a small alphabet.
+   * Parameters: r: Random source.
+   *             len: Length of the word.
+   * Return: Word.
+   */
+  private static String randomWord(SplittableRandom r, int len) {
+    char[] w = new char[len];
+    for (int i = 0; i < len; i++) w[i] = (char) ('a' + r.nextInt(3));
+    return new String(w);
+  }
+
+  /*
+   * Description: Returns the time a TimerWheel fires a timer at: the first tick at or
+   * after the time asked for, but never the tick already processed.
+   * Parameters: when: Time the timer is scheduled for, in ns.
+   *             now: Time of the last advance, or of the tick being processed.
+   *             start: Game time of tick 0.
+   *             tick: Length of a tick, in ns.
+   * Return: Fire time, in ns.
+   */
+  private static long fireTime(long when, long now, long start, long tick) {
+    long t = Math.max(0, Math.floorDiv(when - start + tick - 1, tick));
+    return start + Math.max(t, Math.floorDiv(now - start, tick) + 1) * tick;
+  }
+}
@@ -0,0 +1,427 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: SeqIndex class.
+// Index of the live TorpedoGroups by engine sequence: a character trie whose nodes keep
+// the groups with that exact sequence. It answers exact queries on any CharSequence
+// range without building substrings, and keeps every live group in one dense list so the
+// simulation can walk them by index. Adding and removing a group only touch its own node. Groups with an empty sequence
+// (left behind by a launch) are kept at the root. It also keeps the groups' FocusIndex.
+// The trie doubles as an Aho-Corasick automaton over the pulse string: the matcher follows
+// the string one typed character at a time, and gives every group its match length (the
+// longest end of the pulse string that starts its sequence) and lists the full matches
+// (the ends of the pulse string that are whole sequences) without building strings.
+// The index belongs to the tick thread: it is only read and changed by the simulation
+// tick and by resets, which run while the simulation is stopped, so it takes no locks.
+
+import java.util.*;
+
+class SeqIndex {
+  static final int NONE = -1;
+
+  // Trie nodes, stored by index. Node 0 is the root, the empty sequence. Nodes are never
+  // removed, so the words seen in a session are kept and reused by later groups.
+  private char[] ch = new char[64];            // Character on the edge into the node.
+  private int[] firstChild = new int[64];
+  private int[] nextSibling = new int[64];
+  private int[] parent = new int[64];
+  private int nodeCt = 1;
+  private final ArrayList<ArrayList<TorpedoGroup>> groupsAt = new ArrayList<>(); // Live groups at each node.
+
+  private final ArrayList<TorpedoGroup> all = new ArrayList<>(); // Every live group.
+  private final FocusIndex focus = new FocusIndex(); // Every live group, by characters left to type.
+
+  // Aho-Corasick matcher. The links are rebuilt when nodes have been added since.
+  private int[] fail = new int[0];   // Node of the longest proper suffix of each node that is a node.
+  private int[] depth = new int[0];  // Length of the sequence of each node.
+  private int[] tin = new int[0], tout = new int[0]; // Preorder range of each node's subtree.
+  private int[] queue = new int[0];  // Nodes in breadth-first order, while rebuilding.
+  private boolean linksDirty = true;
+  private CharSequence text = "";    // Pulse string being matched.
+  private int state = 0;             // Node of the longest end of the text that is a node.
+  private int[] chain = new int[16]; // state and its suffix links, down to the root.
+  private int chainCt = 0;
+  private int chainState = NONE;     // State that chain[] was built for.
+
+  /*
+   * Description: Creates an empty index.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  SeqIndex() {
+    firstChild[0] = nextSibling[0] = parent[0] = NONE;
+    groupsAt.add(new ArrayList<>());
+  }
+
+  /*
+   * Description: Returns the number of live groups.
+   * Parameters: (none)
+   * Return: Number of groups, including those with an empty sequence.
+   */
+  int size() {
+    return all.size();
+  }
+
+  /*
+   * Description: Returns a live group by position. Removing a group moves the last group
+   * into its position, so a loop that removes groups must look at the same position again.
+   * Parameters: i: Position, from 0 to size()-1.
+   * Return: Group at that position.
+   */
+  TorpedoGroup get(int i) {
+    return all.get(i);
+  }
+
+  /*
+   * Description: Adds a group under its engine sequence.
+   * Parameters: tg: Group to add. It must not be in the index.
+   * Return: (none)
+   */
+  void add(TorpedoGroup tg) {
+    tg.idxPos = all.size();
+    all.add(tg);
+    focus.add(tg);
+    int n = 0;
+    for (int i = 0; i < tg.seq.length(); i++) {
+      int c = child(n, tg.seq.charAt(i));
+      if (c == NONE) c = addChild(n, tg.seq.charAt(i));
+      n = c;
+    }
+    ArrayList<TorpedoGroup> at = groupsAt.get(n);
+    tg.idxNode = n;
+    tg.idxNodePos = at.size();
+    at.add(tg);
+  }
+
+  /*
+   * Description: Removes a group from the index.
+   * Parameters: tg: Group to remove. It must be in the index.
+   * Return: (none)
+   */
+  void remove(TorpedoGroup tg) {
+    swapRemove(all, tg.idxPos);
+    if (tg.idxPos < all.size()) all.get(tg.idxPos).idxPos = tg.idxPos;
+    focus.remove(tg);
+    ArrayList<TorpedoGroup> at = groupsAt.get(tg.idxNode);
+    swapRemove(at, tg.idxNodePos);
+    if (tg.idxNodePos < at.size()) at.get(tg.idxNodePos).idxNodePos = tg.idxNodePos;
+    tg.idxPos = tg.idxNode = NONE;
+  }
+
+  /*
+   * Description: Removes every group. The trie nodes are kept for reuse.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void clear() {
+    for (int i = 0; i < all.size(); i++) all.get(i).idxPos = all.get(i).idxNode = NONE;
+    all.clear();
+    focus.clear();
+    for (int n = 0; n < nodeCt; n++) groupsAt.get(n).clear();
+  }
+
+  /*
+   * Description: Updates the focus index after a group's match count has changed.
+   * Parameters: tg: Group whose match count has changed. It must be in the index.
+   * Return: (none)
+   */
+  void matchChanged(TorpedoGroup tg) {
+    focus.update(tg);
+  }
+
+  /*
+   * Description: Returns the focus index of the live groups.
+   * Parameters: (none)
+   * Return: Focus index. Do not modify.
+   */
+  FocusIndex focus() {
+    return focus;
+  }
+
+  /*
+   * Description: Finds the node of an exact sequence.
+   * Parameters: s: Characters to look up.
+   *             from, to: Range of s that holds the sequence.
+   * Return: Node of the sequence, or NONE if no group has ever had it or a longer one.
+   */
+  int find(CharSequence s, int from, int to) {
+    int n = 0;
+    for (int i = from; i < to && n != NONE; i++) n = child(n, s.charAt(i));
+    return n;
+  }
+
+  /*
+   * Description: Returns the live groups of a node.
+   * Parameters: n: Node from find().
+   * Return: Groups whose sequence ends at the node. Do not modify.
+   */
+  List<TorpedoGroup> groupsAt(int n) {
+    return groupsAt.get(n);
+  }
+
+  /*
+   * Description: Returns the live groups with an empty sequence, which have no torpedoes.
+   * Parameters: (none)
+   * Return: Groups at the root. Do not modify.
+   */
+  List<TorpedoGroup> unnamed() {
+    return groupsAt.get(0);
+  }
+
+  /*
+   * Description: Returns the number of live groups with exactly the given sequence.
+   * Parameters: s: Sequence to look up.
+   * Return: Number of groups.
+   */
+  int count(CharSequence s) {
+    if (s.length() == 0) return 0;
+    int n = find(s, 0, s.length());
+    return n == NONE ? 0 : groupsAt.get(n).size();
+  }
+
+  /*
+   * Description: Checks whether a live group has the given sequence.
+   * Parameters: s: Sequence to look up.
+   * Return: Whether there is such a group.
+   */
+  boolean contains(CharSequence s) {
+    return count(s) > 0;
+  }
+
+  /*
+   * Description: Starts matching a pulse string. It must then be changed only by appending
+   * characters, removing the first one or clearing it, each followed by the matching call.
+   * Parameters: s: Pulse string.
+   * Return: (none)
+   */
+  void matchOn(CharSequence s) {
+    text = s;
+    rescan();
+  }
+
+  /*
+   * Description: Follows a character appended to the pulse string.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void matchAppended() {
+    if (linksDirty) rebuildLinks(); // Rescans the whole text.
+    else state = step(state, text.charAt(text.length() - 1));
+  }
+
+  /*
+   * Description: Follows the removal of the first character of the pulse string. The
+   * state only changes if it spanned the whole string, and then its suffix link is the
+   * longest end of the rest.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void matchDroppedFirst() {
+    if (linksDirty) rebuildLinks();
+    else if (depth[state] > text.length()) state = fail[state];
+  }
+
+  /*
+   * Description: Follows the clearing of the pulse string.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void matchCleared() {
+    state = 0;
+  }
+
+  /*
+   * Description: Returns the match length of a group: the length of the longest end of the
+   * pulse string that is a prefix of its sequence. It is the full length on a full match.
+   * Parameters: tg: Live group.
+   * Return: Match length.
+   */
+  int matchLen(TorpedoGroup tg) {
+    buildChain();
+    // The longest end of the text on the group's path is the deepest one whose subtree holds the group.
+    int t = tin[tg.idxNode];
+    for (int k = 0; k < chainCt; k++) {
+      int c = chain[k];
+      if (tin[c] <= t && t < tout[c]) return depth[c];
+    }
+    return 0;
+  }
+
+  /*
+   * Description: Finds the next end of the pulse string that is the whole sequence of a
+   * live group, trying the longest ends first.
+   * Parameters: from: Position in the matcher's suffix chain to start from; 0 for the longest end.
+   * Return: Position of the end in the suffix chain, for fullMatchAt(), or NONE if there are no more.
+   */
+  int nextFullMatch(int from) {
+    buildChain();
+    for (int k = Math.max(from, 0); k < chainCt; k++)
+      if (chain[k] != 0 && groupsAt.get(chain[k]).size() > 0) return k;
+    return NONE;
+  }
+
+  /*
+   * Description: Returns the live groups whose sequence is an end of the pulse string.
+   * Parameters: k: Position in the suffix chain, from nextFullMatch().
+   * Return: Groups with that sequence. Do not modify.
+   */
+  List<TorpedoGroup> fullMatchAt(int k) {
+    return groupsAt.get(chain[k]);
+  }
+
+  /*
+   * Description: Lists the ends of the pulse string that are nodes, longest first: the
+   * state and its suffix links, down to the root. Kept until the state changes.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  private void buildChain() {
+    if (linksDirty) rebuildLinks();
+    if (chainState == state) return;
+    chainCt = 0;
+    for (int n = state; ; n = fail[n]) {
+      if (chainCt == chain.length) chain = Arrays.copyOf(chain, chainCt * 2);
+      chain[chainCt++] = n;
+      if (n == 0) break;
+    }
+    chainState = state;
+  }
+
+  /*
+   * Description: Moves the matcher along a character.
+   * Parameters: n: Current state.
+   *             c: Character.
+   * Return: Next state.
+   */
+  private int step(int n, char c) {
+    int k = child(n, c);
+    while (k == NONE && n != 0) {
+      n = fail[n];
+      k = child(n, c);
+    }
+    return k == NONE ? 0 : k;
+  }
+
+  /*
+   * Description: Runs the matcher over the whole text.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  private void rescan() {
+    if (linksDirty) {
+      rebuildLinks(); // Rescans when done.
+      return;
+    }
+    state = 0;
+    for (int i = 0; i < text.length(); i++) state = step(state, text.charAt(i));
+  }
+
+  /*
+   * Description: Rebuilds the suffix links, depths and subtree ranges after nodes have been
+   * added, then rescans the text, whose longest matching end may now be a new node.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  private void rebuildLinks() {
+    if (fail.length < nodeCt) {
+      fail = new int[ch.length];
+      depth = new int[ch.length];
+      tin = new int[ch.length];
+      tout = new int[ch.length];
+      queue = new int[ch.length];
+    }
+    // Breadth first, so the link of a node's parent is known before the node's own.
+    int head = 0, tail = 0;
+    fail[0] = 0;
+    depth[0] = 0;
+    queue[tail++] = 0;
+    while (head < tail) {
+      int u = queue[head++];
+      for (int k = firstChild[u]; k != NONE; k = nextSibling[k]) {
+        depth[k] = depth[u] + 1;
+        if (u == 0) fail[k] = 0;
+        else {
+          int f = fail[u];
+          int fk = child(f, ch[k]);
+          while (fk == NONE && f != 0) {
+            f = fail[f];
+            fk = child(f, ch[k]);
+          }
+          fail[k] = fk == NONE ? 0 : fk;
+        }
+        queue[tail++] = k;
+      }
+    }
+    // Preorder numbering: a node's subtree is the range [tin, tout).
+    int t = 0;
+    int n = 0;
+    tin[0] = t++;
+    while (true) {
+      if (firstChild[n] != NONE) {
+        n = firstChild[n];
+        tin[n] = t++;
+        continue;
+      }
+      // Leaf: close it and the ancestors whose last child it is, then go to the next sibling.
+      while (true) {
+        tout[n] = t;
+        if (n == 0 || nextSibling[n] != NONE) break;
+        n = parent[n];
+      }
+      if (n == 0) break;
+      n = nextSibling[n];
+      tin[n] = t++;
+    }
+    linksDirty = false;
+    chainState = NONE;
+    rescan();
+  }
+
+  /*
+   * Description: Finds the child of a node along a character.
+   * Parameters: n: Parent node.
+   *             c: Character of the edge.
+   * Return: Child node, or NONE.
+   */
+  private int child(int n, char c) {
+    int k = firstChild[n];
+    while (k != NONE && ch[k] != c) k = nextSibling[k];
+    return k;
+  }
+
+  /*
+   * Description: Adds a child to a node, growing the node arrays if needed.
+   * Parameters: n: Parent node.
+   *             c: Character of the edge.
+   * Return: New child node.
+   */
+  private int addChild(int n, char c) {
+    if (nodeCt == ch.length) {
+      int cap = nodeCt * 2;
+      ch = Arrays.copyOf(ch, cap);
+      firstChild = Arrays.copyOf(firstChild, cap);
+      nextSibling = Arrays.copyOf(nextSibling, cap);
+      parent = Arrays.copyOf(parent, cap);
+    }
+    int k = nodeCt++;
+    ch[k] = c;
+    parent[k] = n;
+    firstChild[k] = NONE;
+    nextSibling[k] = firstChild[n];
+    firstChild[n] = k;
+    groupsAt.add(new ArrayList<>());
+    linksDirty = true;
+    return k;
+  }
+
+  /*
+   * Description: Removes an element by moving the last element into its place.
+   * Parameters: list: List to remove from.
+   *             i: Position of the element.
+   * Return: (none)
+   */
+  private static void swapRemove(ArrayList<TorpedoGroup> list, int i) {
+    int last = list.size() - 1;
+    if (i != last) list.set(i, list.get(last));
+    list.remove(last);
+  }
+}
@@ -0,0 +1,230 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: SessionHost and Session classes.
+// Runs many headless game sessions at once on a small, fixed pool of carrier threads.
+// Each session runs a slice of ticks at a time and then yields its carrier, so thousands
+// of sessions share a few cores fairly instead of each needing a thread of its own.
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+class SessionHost {
+  private final ExecutorService carriers; // Carrier threads the sessions take turns on.
+  private final Semaphore admission;      // One permit per session that may be running at once.
+  final int sliceTicks;                   // Ticks a session runs before yielding its carrier.
+
+  // Aggregate counters, updated by every carrier.
+  final LongAdder ticks = new LongAdder();     // Simulation ticks run.
+  final LongAdder admitted = new LongAdder();  // Sessions accepted.
+  final LongAdder rejected = new LongAdder();  // Sessions refused because the host was full.
+  final LongAdder won = new LongAdder();
+  final LongAdder lost = new LongAdder();
+  final LongAdder timedOut = new LongAdder();  // Sessions stopped by their tick budget.
+  final LongAdder failed = new LongAdder();    // Sessions stopped by an exception.
+  private final long startTime = System.nanoTime();
+
+  /*
+   * Description: Creates a session host.
+   * Parameters: threads: Number of carrier threads.
+   *             maxSessions: Max. number of sessions running at once.
+   *             slice: Ticks a session runs before yielding its carrier.
+   * Return: (none)
+   */
+  SessionHost(int threads, int maxSessions, int slice) {
+    if (threads <= 0 || maxSessions <= 0 || slice <= 0)
+      throw new IllegalArgumentException("threads, maxSessions and slice must be positive");
+    AtomicInteger n = new AtomicInteger();
+    carriers = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "session-carrier-" + n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    admission = new Semaphore(maxSessions);
+    sliceTicks = slice;
+  }
+
+  /*
+   * Description: Starts running a game session, if the host has room for it.
+   * Parameters: game: Game session to run. Must be driven by a virtual clock.
+   *             input: Scripted input, or null for none.
+   *             maxTicks: Tick budget of the session; it is stopped when the budget runs out.
+   * Return: Running session, or null if the host is full.
+   */
+  Session submit(Game game, ScriptedInput input, long maxTicks) {
+    if (!game.clock.isVirtual())
+      throw new IllegalArgumentException("Hosted sessions must use a virtual clock.");
+    if (!admission.tryAcquire()) {
+      rejected.increment();
+      return null;
+    }
+    return start(game, input, maxTicks);
+  }
+
+  /*
+   * Description: Starts running a game session, waiting for room if the host is full.
+   * Parameters: game: Game session to run. Must be driven by a virtual clock.
+   *             input: Scripted input, or null for none.
+   *             maxTicks: Tick budget of the session.
+   * Return: Running session.
+   */
+  Session submitWait(Game game, ScriptedInput input, long maxTicks) throws InterruptedException {
+    if (!game.clock.isVirtual())
+      throw new IllegalArgumentException("Hosted sessions must use a virtual clock.");
+    admission.acquire();
+    return start(game, input, maxTicks);
+  }
+
+  /*
+   * Description: Starts an admitted session.
+   * Parameters: game, input, maxTicks: As for submit().
+   * Return: Running session.
+   */
+  private Session start(Game game, ScriptedInput input, long maxTicks) {
+    admitted.increment();
+    Session s = new Session(this, game, input, maxTicks);
+    try {
+      carriers.execute(s);
+    } catch (RejectedExecutionException e) { // Host shut down.
+      admitted.decrement();
+      admission.release();
+      throw e;
+    }
+    return s;
+  }
+
+  /*
+   * Description: Queues a session for its next slice, behind the sessions already waiting.
+   * Parameters: s: Session to queue.
+   * Return: (none)
+   */
+  void resubmit(Session s) {
+    carriers.execute(s);
+  }
+
+  /*
+   * Description: Returns the number of sessions currently running or waiting for a carrier.
+   * Parameters: (none)
+   * Return: Number of active sessions.
+   */
+  int activeSessions() {
+    return (int) (admitted.sum() - won.sum() - lost.sum() - timedOut.sum() - failed.sum());
+  }
+
+  /*
+   * Description: Called by a session when it has finished, to free its place.
+   * Parameters: s: Finished session.
+   * Return: (none)
+   */
+  void finished(Session s) {
+    switch (s.result) {
+      case Session.WON: won.increment(); break;
+      case Session.LOST: lost.increment(); break;
+      case Session.TIMED_OUT: timedOut.increment(); break;
+      default: failed.increment(); break;
+    }
+    admission.release();
+  }
+
+  /*
+   * Description: Stops the carrier threads. Sessions still running are abandoned.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void shutdown() {
+    carriers.shutdownNow();
+  }
+
+  /*
+   * Description: Summarises the counters.
+   * Parameters: (none)
+   * Return: One-line summary of the host's counters and throughput.
+   */
+  public String toString() {
+    double secs = (System.nanoTime() - startTime) / 1e9;
+    return String.format("%d active, %d won, %d lost, %d timed out, %d failed, %d rejected; %d ticks = %.0f ticks/s",
+        activeSessions(), won.sum(), lost.sum(), timedOut.sum(), failed.sum(), rejected.sum(),
+        ticks.sum(), ticks.sum() / secs);
+  }
+}
+
+class Session implements Runnable {
+  // Results.
+  static final int RUNNING = 0;
+  static final int WON = 1;
+  static final int LOST = 2;
+  static final int TIMED_OUT = 3; // Stopped by the tick budget.
+  static final int FAILED = 4;    // Stopped by an exception.
+
+  final Game game;
+  private final SessionHost host;
+  private final ScriptedInput input;
+  private final long maxTicks; // Tick budget.
+  private long ticks = 0;      // Ticks run so far. Only touched by the carrier running the session.
+  volatile int result = RUNNING;
+  Throwable error;             // Exception that stopped the session, if FAILED.
+  final CompletableFuture<Session> done = new CompletableFuture<>(); // Completed when the session finishes.
+
+  /*
+   * Description: Creates a session. Sessions are created by SessionHost.submit().
+   * Parameters: h: Host running the session.
+   *             g: Game session to run.
+   *             in: Scripted input, or null for none.
+   *             budget: Tick budget of the session.
+   * Return: (none)
+   */
+  Session(SessionHost h, Game g, ScriptedInput in, long budget) {
+    host = h;
+    game = g;
+    input = in;
+    maxTicks = budget;
+  }
+
+  /*
+   * Description: Returns the number of ticks run so far.
+   * Parameters: (none)
+   * Return: Number of ticks. Exact once the session is done.
+   */
+  long getTicks() {
+    return ticks;
+  }
+
+  /*
+   * Description: Runs one slice of ticks, then either finishes the session or
+   * queues it behind the other sessions waiting for a carrier.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  public void run() {
+    int n = 0;
+    try {
+      while (n < host.sliceTicks && result == RUNNING) {
+        if (ticks >= maxTicks) {
+          result = TIMED_OUT;
+          break;
+        }
+        if (input != null) input.poll(game);
+        game.clock.advance(Game.TICK_NS);
+        ticks++;
+        n++;
+        if (game.advance()) result = WON;
+        else if (game.isLost()) result = LOST;
+      }
+    } catch (RuntimeException e) {
+      error = e;
+      result = FAILED;
+    }
+    host.ticks.add(n);
+
+    if (result == RUNNING) {
+      try {
+        host.resubmit(this);
+        return;
+      } catch (RejectedExecutionException e) { // Host shut down.
+        error = e;
+        result = FAILED;
+      }
+    }
+    host.finished(this);
+    done.complete(this);
+  }
+}
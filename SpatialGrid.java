@@ -0,0 +1,119 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: SpatialGrid class.
+// A uniform grid over BattleSpace that buckets the bodies of a BodyStore by cell, so that
+// radius queries (pulses, contact with the home ship) only look at the bodies in the cells
+// they overlap. BattleSpace is unbounded (released torpedoes coast on forever), so cells are
+// hashed into a fixed number of buckets. The grid is rebuilt from the store after the
+// bodies move, in one counting-sort pass over the slots, without allocating.
+
+import java.util.*;
+
+class SpatialGrid {
+  static final double CELL = 0.125;           // Side of a cell, in BSU.
+  static final int BUCKETS = 256;             // Number of hash buckets. A power of 2.
+
+  private BodyStore bodies;                   // Store the grid was built from.
+  private final int[] start = new int[BUCKETS + 1]; // Start of each bucket in items[].
+  private final int[] fill = new int[BUCKETS];      // Next free position of each bucket while building.
+  private int[] items = new int[64];          // Slots of the bodies, grouped by bucket.
+  private int[] bucketOf = new int[64];       // Bucket of each slot.
+
+  private final int[] visited = new int[BUCKETS]; // Query number that last visited each bucket.
+  private int queryCt = 0;
+  private int[] result = new int[64];         // Slots found by the last query.
+  private int resultCt = 0;
+
+  /*
+   * Description: Rebuilds the grid from the current positions of the bodies. Must be called
+   * again whenever bodies move or their slots change.
+   * Parameters: b: Store to index.
+   * Return: (none)
+   */
+  void rebuild(BodyStore b) {
+    bodies = b;
+    int n = b.n;
+    if (items.length < n) {
+      int cap = Math.max(n, items.length * 2);
+      items = new int[cap];
+      bucketOf = new int[cap];
+      result = new int[cap];
+    }
+    Arrays.fill(start, 0);
+    for (int i = 0; i < n; i++) {
+      int k = bucket(cell(b.x[i]), cell(b.y[i]));
+      bucketOf[i] = k;
+      start[k + 1]++;
+    }
+    for (int k = 0; k < BUCKETS; k++) {
+      start[k + 1] += start[k];
+      fill[k] = start[k];
+    }
+    for (int i = 0; i < n; i++)
+      items[fill[bucketOf[i]]++] = i;
+  }
+
+  /*
+   * Description: Finds every body strictly within a distance of a point.
+   * The slots found are read with result().
+   * Parameters: cx, cy: Center of the disc.
+   *             r: Radius of the disc.
+   * Return: Number of bodies found.
+   */
+  int queryDisc(double cx, double cy, double r) {
+    resultCt = 0;
+    int x0 = cell(cx - r), x1 = cell(cx + r);
+    int y0 = cell(cy - r), y1 = cell(cy + r);
+    if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) >= BUCKETS) { // Covers every bucket anyway.
+      for (int j = 0; j < start[BUCKETS]; j++) test(items[j], cx, cy, r);
+      return resultCt;
+    }
+    queryCt++;
+    for (int gx = x0; gx <= x1; gx++) {
+      for (int gy = y0; gy <= y1; gy++) {
+        int k = bucket(gx, gy);
+        if (visited[k] == queryCt) continue; // Another cell of the disc hashed to the same bucket.
+        visited[k] = queryCt;
+        for (int j = start[k]; j < start[k + 1]; j++) test(items[j], cx, cy, r);
+      }
+    }
+    return resultCt;
+  }
+
+  /*
+   * Description: Returns a body found by the last query.
+   * Parameters: i: Index, from 0 to the count returned by the query - 1.
+   * Return: Slot of the body.
+   */
+  int result(int i) {
+    return result[i];
+  }
+
+  /*
+   * Description: Adds a body to the result if it is within the disc.
+   * Parameters: i: Slot of the body.
+   *             cx, cy, r: Center and radius of the disc.
+   * Return: (none)
+   */
+  private void test(int i, double cx, double cy, double r) {
+    if (G.dist(bodies.x[i], bodies.y[i], cx, cy) < r) result[resultCt++] = i;
+  }
+
+  /*
+   * Description: Returns the cell coordinate of a BattleSpace coordinate.
+   * Parameters: v: Coordinate, in BSU.
+   * Return: Cell coordinate.
+   */
+  private static int cell(double v) {
+    return (int) Math.floor(v / CELL);
+  }
+
+  /*
+   * Description: Returns the bucket of a cell.
+   * Parameters: gx, gy: Cell coordinates.
+   * Return: Bucket number.
+   */
+  private static int bucket(int gx, int gy) {
+    return (gx * 73856093 ^ gy * 19349663) & (BUCKETS - 1);
+  }
+}
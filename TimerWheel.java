@@ -0,0 +1,245 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: TimerWheel class and TimerListener interface.
+// A hierarchical timing wheel that fires scheduled game events at simulation ticks.
+// Each tick only looks at the timers that are due, so the cost of a tick depends on the
+// number of events that fire rather than on the number of objects waiting for one.
+// Timers are identified by long handles, so a stale handle can never cancel a timer that
+// has since been reused for something else.
+
+import java.util.*;
+
+interface TimerListener {
+  /*
+   * Description: Called when a timer fires.
+   * Parameters: kind: Kind of event, as given to schedule().
+   *             now: Game time, in ns, of the tick that fired the timer.
+   * Return: (none)
+   */
+  void onTimer(int kind, long now);
+}
+
+class TimerWheel {
+  static final int SLOT_BITS = 6;              // 64 slots per level.
+  static final int SLOTS = 1 << SLOT_BITS;
+  static final int LEVELS = 4;                 // 64^4 ticks: about 46 hours of 10 ms ticks.
+  static final int NIL = -1;
+
+  private final long tickNs;  // Length of a tick, in ns.
+  private long base;          // Game time of tick 0.
+  private long curTick = 0;   // Last tick processed.
+
+  // Timer nodes, stored by index. Free nodes are chained through next[].
+  private TimerListener[] listener = new TimerListener[64];
+  private int[] kind = new int[64];
+  private long[] dueTick = new long[64];
+  private long[] serial = new long[64];        // Changes every time a node is reused.
+  private int[] next = new int[64], prev = new int[64];
+  private int[] slotOf = new int[64];          // level * SLOTS + slot of a scheduled node, or NIL.
+  private int freeHead = NIL;
+  private int nodeCt = 0;
+  private long nextSerial = 1;
+  private int size = 0;                        // Number of scheduled timers.
+
+  private final int[] slotHead = new int[LEVELS * SLOTS]; // First node in each slot, or NIL.
+
+  /*
+   * Description: Creates an empty timer wheel.
+   * Parameters: tick: Length of a tick, in ns.
+   *             start: Game time of tick 0.
+   * Return: (none)
+   */
+  TimerWheel(long tick, long start) {
+    tickNs = tick;
+    Arrays.fill(slotHead, NIL);
+    clear(start);
+  }
+
+  /*
+   * Description: Cancels every timer and restarts the wheel at the given time.
+   * Parameters: start: Game time of tick 0.
+   * Return: (none)
+   */
+  void clear(long start) {
+    for (int s = 0; s < slotHead.length; s++) {
+      int n = slotHead[s];
+      while (n != NIL) {
+        int nx = next[n];
+        release(n);
+        n = nx;
+      }
+      slotHead[s] = NIL;
+    }
+    size = 0;
+    base = start;
+    curTick = 0;
+  }
+
+  /*
+   * Description: Returns the number of scheduled timers.
+   * Parameters: (none)
+   * Return: Number of timers waiting to fire.
+   */
+  int size() {
+    return size;
+  }
+
+  /*
+   * Description: Schedules a timer.
+   * Parameters: when: Game time, in ns, at which to fire. The timer fires at the first tick
+   *             at or after this time, but never at the tick being processed.
+   *             l: Listener to call.
+   *             k: Kind of event, passed back to the listener.
+   * Return: Handle of the timer, for cancel(). Never 0.
+   */
+  long schedule(long when, TimerListener l, int k) {
+    long rel = when - base;
+    long t = rel <= 0 ? 0 : (rel + tickNs - 1) / tickNs; // First tick at or after when.
+    if (t <= curTick) t = curTick + 1;
+
+    int n = alloc();
+    listener[n] = l;
+    kind[n] = k;
+    dueTick[n] = t;
+    insert(n);
+    size++;
+    return (serial[n] << 32) | n;
+  }
+
+  /*
+   * Description: Cancels a timer. Cancelling a timer that has fired or was already
+   * cancelled has no effect.
+   * Parameters: handle: Handle returned by schedule(), or 0.
+   * Return: Whether a scheduled timer was cancelled.
+   */
+  boolean cancel(long handle) {
+    if (handle == 0) return false;
+    int n = (int) handle;
+    if (n < 0 || n >= nodeCt || serial[n] != handle >>> 32 || slotOf[n] == NIL) return false;
+    unlink(n);
+    release(n);
+    size--;
+    return true;
+  }
+
+  /*
+   * Description: Fires every timer due up to the given time, in order of their due tick.
+   * Timers scheduled by a listener for a later tick wait for that tick.
+   * Parameters: now: Current game time, in ns.
+   * Return: Number of timers fired.
+   */
+  int advance(long now) {
+    long target = Math.floorDiv(now - base, tickNs);
+    int fired = 0;
+    while (curTick < target) {
+      curTick++;
+      // Move the timers of the higher levels down when their slot comes up.
+      for (int lv = 1; lv < LEVELS; lv++) {
+        if ((curTick & ((1L << (SLOT_BITS * lv)) - 1)) != 0) break;
+        cascade(lv, (int) (curTick >>> (SLOT_BITS * lv)) & (SLOTS - 1));
+      }
+      int s = (int) curTick & (SLOTS - 1);
+      while (slotHead[s] != NIL) {
+        int n = slotHead[s];
+        unlink(n);
+        size--;
+        TimerListener l = listener[n];
+        int k = kind[n];
+        release(n); // Before the call, so the listener can reuse the node.
+        l.onTimer(k, base + curTick * tickNs);
+        fired++;
+      }
+    }
+    return fired;
+  }
+
+  /*
+   * Description: Re-inserts the timers of a higher-level slot, which now fall in lower levels.
+   * Parameters: lv: Level of the slot.
+   *             s: Slot number.
+   * Return: (none)
+   */
+  private void cascade(int lv, int s) {
+    int idx = lv * SLOTS + s;
+    int n = slotHead[idx];
+    slotHead[idx] = NIL;
+    while (n != NIL) {
+      int nx = next[n];
+      insert(n);
+      n = nx;
+    }
+  }
+
+  /*
+   * Description: Puts a node into the slot for its due tick.
+   * Parameters: n: Node index.
+   * Return: (none)
+   */
+  private void insert(int n) {
+    long t = dueTick[n];
+    long delta = t - curTick;
+    int lv = 0;
+    while (lv < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (lv + 1)))) lv++;
+    if (delta >= (1L << (SLOT_BITS * LEVELS))) t = curTick + (1L << (SLOT_BITS * LEVELS)) - 1; // Beyond range: park at the far end.
+    int idx = lv * SLOTS + ((int) (t >>> (SLOT_BITS * lv)) & (SLOTS - 1));
+    slotOf[n] = idx;
+    prev[n] = NIL;
+    next[n] = slotHead[idx];
+    if (next[n] != NIL) prev[next[n]] = n;
+    slotHead[idx] = n;
+  }
+
+  /*
+   * Description: Removes a node from its slot.
+   * Parameters: n: Node index.
+   * Return: (none)
+   */
+  private void unlink(int n) {
+    int idx = slotOf[n];
+    if (prev[n] != NIL) next[prev[n]] = next[n];
+    else slotHead[idx] = next[n];
+    if (next[n] != NIL) prev[next[n]] = prev[n];
+    slotOf[n] = NIL;
+  }
+
+  /*
+   * Description: Takes a node from the free list, growing the node arrays if needed.
+   * Parameters: (none)
+   * Return: Node index.
+   */
+  private int alloc() {
+    int n;
+    if (freeHead != NIL) {
+      n = freeHead;
+      freeHead = next[n];
+    }
+    else {
+      if (nodeCt == listener.length) {
+        int cap = nodeCt * 2;
+        listener = Arrays.copyOf(listener, cap);
+        kind = Arrays.copyOf(kind, cap);
+        dueTick = Arrays.copyOf(dueTick, cap);
+        serial = Arrays.copyOf(serial, cap);
+        next = Arrays.copyOf(next, cap);
+        prev = Arrays.copyOf(prev, cap);
+        slotOf = Arrays.copyOf(slotOf, cap);
+      }
+      n = nodeCt++;
+    }
+    serial[n] = nextSerial++;
+    return n;
+  }
+
+  /*
+   * Description: Returns a node to the free list.
+   * Parameters: n: Node index.
+   * Return: (none)
+   */
+  private void release(int n) {
+    listener[n] = null;
+    slotOf[n] = NIL;
+    serial[n] = 0;
+    next[n] = freeHead;
+    freeHead = n;
+  }
+}
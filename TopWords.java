@@ -0,0 +1,141 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: TopWords class.
+// Streaming count of the most frequent words destroyed, in bounded memory (the
+// space-saving algorithm). A fixed number of counters is kept, sorted by count; a word
+// that is not counted yet takes over the counter of the least frequent word and starts
+// from its count, which is kept as the counter's error. Any word destroyed more than
+// total/CAPACITY times is always counted, and a count is never too low: it is at most
+// its error above the true count. Counts are exact until more than CAPACITY different
+// words have been seen. Words are found through an open-addressing table of the
+// counted words, so counting a word does not allocate.
+
+import java.util.*;
+
+class TopWords {
+  static final int CAPACITY = 64;             // Number of words counted.
+  private static final int TABLE = 128;       // Size of the word table. A power of 2, > CAPACITY.
+
+  // Counters, sorted by count, most frequent first, then by word, last in dictionary order first.
+  private final String[] word = new String[CAPACITY];
+  private final int[] count = new int[CAPACITY];
+  private final int[] err = new int[CAPACITY];    // Count taken over from an evicted word: the max. overestimate.
+  private final int[] slotOf = new int[CAPACITY]; // Table slot of each counter's word.
+  private int size = 0;
+
+  // Word table: counter position of each counted word, by hash of the word.
+  private final String[] key = new String[TABLE];
+  private final int[] posOf = new int[TABLE];
+
+  /*
+   * Description: Counts one more occurrence of a word.
+   * Parameters: w: Word to count.
+   * Return: (none)
+   */
+  void add(String w) {
+    int slot = find(w);
+    int p;
+    if (key[slot] != null) p = posOf[slot];
+    else {
+      if (size < CAPACITY) { // Free counter at the end, below every count.
+        p = size++;
+        count[p] = 0;
+        err[p] = 0;
+      }
+      else { // Take over the counter of the least frequent word.
+        p = size - 1;
+        err[p] = count[p];
+        remove(slotOf[p]);
+        slot = find(w);
+      }
+      key[slot] = w;
+      posOf[slot] = p;
+      word[p] = w;
+      slotOf[p] = slot;
+    }
+    count[p]++;
+    // Move the counter up past the counters it now ranks above.
+    while (p > 0 && before(p, p - 1)) {
+      swap(p, p - 1);
+      p--;
+    }
+  }
+
+  /*
+   * Description: Removes every word.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void clear() {
+    Arrays.fill(word, null);
+    Arrays.fill(key, null);
+    size = 0;
+  }
+
+  /*
+   * Description: Returns the most frequent words. Once more than CAPACITY different words
+   * have been counted, a count may overestimate the true count by up to its error.
+   * Parameters: k: Maximum number of words to return.
+   * Return: Up to k words with their counts and errors, most frequent first.
+   */
+  List<FreqData> top(int k) {
+    List<FreqData> l = new ArrayList<>();
+    for (int i = 0; i < Math.min(k, size); i++) l.add(new FreqData(word[i], count[i], err[i]));
+    return l;
+  }
+
+  /*
+   * Description: Checks whether a counter ranks above another.
+   * Parameters: a, b: Positions of the counters.
+   * Return: Whether a has the larger count, or the same count and the later word.
+   */
+  private boolean before(int a, int b) {
+    return count[a] > count[b] || count[a] == count[b] && word[a].compareTo(word[b]) > 0;
+  }
+
+  /*
+   * Description: Swaps two counters.
+   * Parameters: a, b: Positions of the counters.
+   * Return: (none)
+   */
+  private void swap(int a, int b) {
+    String w = word[a]; word[a] = word[b]; word[b] = w;
+    int c = count[a]; count[a] = count[b]; count[b] = c;
+    int e = err[a]; err[a] = err[b]; err[b] = e;
+    int s = slotOf[a]; slotOf[a] = slotOf[b]; slotOf[b] = s;
+    posOf[slotOf[a]] = a;
+    posOf[slotOf[b]] = b;
+  }
+
+  /*
+   * Description: Finds the table slot of a word, or the empty slot where it would go.
+   * Parameters: w: Word to look up.
+   * Return: Table slot.
+   */
+  private int find(String w) {
+    int s = w.hashCode() & (TABLE - 1);
+    while (key[s] != null && !key[s].equals(w)) s = (s + 1) & (TABLE - 1);
+    return s;
+  }
+
+  /*
+   * Description: Removes a word from the table, moving later words of its probe run back
+   * so that they can still be found.
+   * Parameters: s: Table slot of the word.
+   * Return: (none)
+   */
+  private void remove(int s) {
+    key[s] = null;
+    for (int j = (s + 1) & (TABLE - 1); key[j] != null; j = (j + 1) & (TABLE - 1)) {
+      int home = key[j].hashCode() & (TABLE - 1);
+      // Move the word at j into the hole unless its home lies cyclically in (s, j].
+      if (((j - home) & (TABLE - 1)) >= ((j - s) & (TABLE - 1))) {
+        key[s] = key[j];
+        posOf[s] = posOf[j];
+        slotOf[posOf[s]] = s;
+        key[j] = null;
+        s = j;
+      }
+    }
+  }
+}
@@ -3,152 +3,153 @@
 // Description: TxTorpedo class and TorpedoGroup class.
 // All EnemyShips and TextTorpedoes are part of a TorpedoGroup. Updates to
 // EnemyShips and TextTorpedoes are all handled at once by the static methods in TorpedoGroup.
+// Torpedoes are taken from the session's pool and groups from its GroupArena, and both
+// are put back when the group is removed.
 
 import java.util.*;
-import java.util.concurrent.*;
 import java.util.List;
 import java.awt.*;
 import java.awt.geom.*;
 
-class TxTorpedo {
+class TxTorpedo extends Pooled {
   // getters
   public Pt2 getPos() {
-    return pos;
+    int i = bodies.slot(id);
+    return new Pt2(bodies.x[i], bodies.y[i]);
   }
 
-  public Pt2 getVel() {
-    return vel;
+  public Pt2 getPos(Pt2 out) {
+    int i = bodies.slot(id);
+    return out.set(bodies.x[i], bodies.y[i]);
   }
 
-  private Pt2 pos, vel; // Position and velocity, in BattleSpace.
-  private char ch; // Character of the torpedo.
-  private Pt2 targetPt; // Target position. In follow mode, the torpedo will keep itself at minDist from the target position.
-  public Pt2 getTargetPt() {
-    return targetPt;
+  public int getState() {
+    return bodies.state[bodies.slot(id)];
   }
 
-  public void setTargetPt(Pt2 targetPt) {
-    this.targetPt = targetPt;
-  }
-
-  double maxSpeed = 0.5; // in BSU / sec
-  private double minDist; // Minimum distance from the target point. Keeps letters from jumbling together.
-  private double angle; // Angle of the letter, in radians.
-
-  HomeShip homeShip;
+  // Position, velocity, character, target and state are kept in the session's BodyStore.
+  private BodyStore bodies;
+  int id = -1; // Id of the torpedo in the BodyStore, or -1 while in the pool.
+  TorpedoGroup group; // Group the torpedo belongs to.
 
   // State constants.
   static final int FOLLOW = 0; // Following the parent EnemyShip.
   static final int RELEASED = 1; // Released (no directionality changes possible)
   static final int PULSED = 2; // Being destroyed by a Pulse.
 
-  private double maxAccel = 1; // Maximum acceleration, in BSUs/sec^2.
-  private double minSpeed = 0.1; // Minimum speed. The TxTorpedo will decelerate to this speed when released.
-  int state = FOLLOW; // Current state of the torpedo.
+  static final double maxAccel = 1; // Maximum acceleration, in BSUs/sec^2.
+  static final double minSpeed = 0.1; // Minimum speed. The TxTorpedo will decelerate to this speed when released.
   static final double spd_pulsed = 0.5; // Speed of torpedoes when they are being destroyed.
 
-    static Font font = new Font("Courier New", Font.BOLD, 15);
-
     /*
-     * Description: Creates a new TxTorpedo.
+     * Description: Sets up a torpedo taken from the pool at the position of its parent ship.
      * Parameters: c: Chacter of the torpedo.
-     *             initPos: Initial position, in BattleSpace.
-     *             target: Target position, in BattleSpace.
+     *             targetId: Id of the body to follow, in the BodyStore.
      *             first: Whether this is the first torpedo.
-     *             hs: Reference to the home ship.
-     *             eShip: Parent enemy ship.
-     * Return: (none)
+     *             tg: Group of the torpedo, still attached to its parent ship.
+     * Return: this.
      */
-    TxTorpedo(char c, Pt2 initPos, Pt2 target, boolean first, HomeShip hs, EnemyShip eShip) {
-      pos = new Pt2(initPos); // initpos may have properties modified later
-      vel = eShip.getVel();
-      targetPt = target;
-      ch = c;
-      homeShip = hs;
-      minDist = first ? 0.03 : 0.04; // follow a bit further away for the 1st letter
+    TxTorpedo init(char c, int targetId, boolean first, TorpedoGroup tg) {
+      group = tg;
+      bodies = tg.game.bodies;
+      int s = bodies.slot(tg.parentShip.id);
+      id = bodies.add(FOLLOW, bodies.x[s], bodies.y[s]);
+      int i = bodies.slot(id);
+      bodies.torp[i] = this;
+      bodies.ch[i] = c;
+      bodies.target[i] = bodies.slot(targetId);
+      bodies.maxSpeed[i] = 0.5; // in BSU / sec
+      bodies.minDist[i] = first ? 0.03 : 0.04; // follow a bit further away for the 1st letter
+      return this;
     }
 
     /*
-     * Description: Resize event handler: Updates the font size.
-     * Parameters: bv: BattleView object to get scaling info.
+     * Description: Forgets the torpedo's body as it goes back into the pool.
+     * Parameters: (none)
      * Return: (none)
      */
-    static void onResize(BattleView bv) {
-      font = new Font("Courier New", Font.BOLD, bv.scale(new Pt2(0.06, 0)).x);
+    void recycle() {
+      bodies = null;
+      group = null;
+      id = -1;
     }
 
     /*
      * Description: Launches the current text torpedo at the given initial velocity.
-     * Parameters: v: Initial velocity of the torpedo.
+     * Parameters: vx, vy: Initial velocity of the torpedo.
      * Return: (none)
      */
-    void launch(Pt2 v) {
-      // targetPt = new Pt2(newTarget);
-      vel = new Pt2(v);
+    void launch(double vx, double vy) {
+      int i = bodies.slot(id);
+      bodies.vx[i] = vx;
+      bodies.vy[i] = vy;
       // accelerate to reorient to home ship
-      state = RELEASED;
-      // subtract direction vectors, convert to direction vector, 0.8 bsu /sec^2 accel
-      // maxAccelTime = (int) (700 + Math.random() * 1800);
+      bodies.state[i] = RELEASED;
     }
 
     /*
-     * Description: Updates the position and state of the torpedo.
-     * Parameters: bv: BattleView information,
-     *             deleta: Time passed since last update, in ms.
-     * Return: (null)
+     * Description: Makes the torpedo follow another one, eg when its group is pulsed.
+     * Parameters: leader: Torpedo to follow.
+     * Return: (none)
      */
-    void moveFwd(BattleView bv, long delta) {
-
-      Pt2 deltaD = targetPt.diff(pos);
-      // Update position of the torpedo according to its state.
-      switch (state) {
-        case RELEASED: // Released: Decelerate if required to minSpeed and move forward.
-          pos.add(vel.scl(delta / 1000.0));
-          double deltaS = maxAccel * delta / 1000.0;
-          // Decelerate to minSpeed.
-          if (vel.magn() - deltaS > minSpeed)
-            vel.sub(vel.norm().scl(deltaS));
-
-          // Contact made with home ship.
-          if (homeShip.getPos().diff(pos).magn() < HomeShip.getContactRad()) {
-            homeShip.causeDamage(this);
-          }
-          break;
-
-        case PULSED: // Being destroyed by a Pulse.
-          // Move away from the home ship at max speed.
-          pos.add(pos.diff(homeShip.getPos()).norm().scl(maxSpeed*delta/1000.0));
-          break;
-
-        case FOLLOW: // Following the parent ship or other torpedo.
-          angle = deltaD.angle();
-          deltaD.sub(deltaD.norm().scl(minDist)); // do not move closer than minDist from the target point
-          double dist = deltaD.magn();
-          double maxDist = maxSpeed * delta / 1000;
-          if (dist > maxDist) // Too far away to catch up immediately: move at max speed
-            pos.add(deltaD.norm().scl(maxDist));
-          else if (dist > minDist) { // Close enough to move to optimal position within one tick
-            pos.add(deltaD);
-          }
-          break;
-      }
+    void follow(TxTorpedo leader) {
+      bodies.target[bodies.slot(id)] = bodies.slot(leader.id);
     }
 
     /*
-     * Description: Draws the torpedo.
+     * Description: Puts the torpedo into a new state, moving at the given max. speed.
+     * Parameters: st: New state.
+     *             speed: Max. speed, in BSU / sec.
+     * Return: (none)
+     */
+    void setState(int st, double speed) {
+      int i = bodies.slot(id);
+      bodies.state[i] = st;
+      bodies.maxSpeed[i] = speed;
+    }
+
+    /*
+     * Description: Copies the torpedo into a render snapshot.
+     * Parameters: s: Snapshot to write into.
+     *             lit: Whether the torpedo is matched by the pulse sequence.
+     *             exploded: Whether the torpedo's group has been destroyed.
+     * Return: (none)
+     */
+    void snapshot(RenderSnapshot s, boolean lit, boolean exploded) {
+      int i = s.addTorp();
+      int b = bodies.slot(id);
+      s.torpX[i] = bodies.x[b];
+      s.torpY[i] = bodies.y[b];
+      s.torpPrevX[i] = bodies.prevX[b];
+      s.torpPrevY[i] = bodies.prevY[b];
+      s.torpAng[i] = bodies.angle[b];
+      s.torpCh[i] = bodies.ch[b];
+      s.torpLit[i] = lit;
+      s.torpExploded[i] = exploded;
+    }
+
+    /*
+     * Description: Draws a torpedo from a render snapshot.
      * Parameters: bv: BattleView object,
      *             gg: Graphics object (to be casted as Graphics2D for drawing)
-     *             c: Colour to draw TxTorpedo with
-     *             exploded: Whether to draw the torpedo in its exploding phase.
+     *             s: Snapshot to draw from.
+     *             idx: Index of the torpedo in the snapshot.
      */
-    void draw(BattleView bv, Graphics gg, Color c, boolean exploded) {
+    static void draw(BattleView bv, Graphics gg, RenderSnapshot s, int idx) {
       Graphics2D g = (Graphics2D)gg;
+      double a = s.alpha;
+      Pt2 drawPos = new Pt2(s.torpPrevX[idx] + (s.torpX[idx] - s.torpPrevX[idx]) * a,
+          s.torpPrevY[idx] + (s.torpY[idx] - s.torpPrevY[idx]) * a);
+      double angle = s.torpAng[idx];
+      char ch = s.torpCh[idx];
+      Color c = s.torpLit[idx] ? Color.ORANGE : Color.GRAY;
+      Font font = bv.torpFont;
 
       // Draw exploding animation
-      if (exploded) {
-        Pt2_i scrCoord = bv.toScrPt(pos);
-        double s=10;
-        Path2D l = G.mkExplodePath(s, 0);
+      if (s.torpExploded[idx]) {
+        Pt2_i scrCoord = bv.toScrPt(drawPos);
+        double sz=10;
+        Path2D l = G.mkExplodePath(sz, 0, bv.game.rng.cosmetic);
         AffineTransform at = new AffineTransform();
         at.translate(scrCoord.x, scrCoord.y);// scrCoords.x, scrCoords.y);
         at.rotate(Math.PI - angle);
@@ -175,7 +176,7 @@ class TxTorpedo {
 
         g.setColor(c);
 
-        Pt2_i scrPos = bv.toScrPt(pos);
+        Pt2_i scrPos = bv.toScrPt(drawPos);
         g.drawString(""+ch, (int) (scrPos.x - area.getWidth() / 2), (int) (scrPos.y + area.getHeight() / 2));
         // center char vertically & horizontally
         if (G.DEBUG) {
@@ -188,62 +189,92 @@ class TxTorpedo {
 
   }
 
-  class TorpedoGroup {
+  class TorpedoGroup extends Pooled {
     String seq; // Engine sequence for the Torpedo Group.
-    long startTime; // Time in ms of creation of the TorpedoGroup.
-    List<TxTorpedo> torps; // Thread-safe list of TxTorpedoes in this group.
+    final List<TxTorpedo> torps = new ArrayList<>(); // TxTorpedoes in this group. Only used by the tick thread.
     int matchCt; // Number of pulses matching the engine sequence for this group.
     Pulse locked = null; // Pulse that is currently destroying this group.
+    private long lockSerial; // Serial of the locking pulse, which may since have been reused.
     EnemyShip parentShip; // Refence to parent EnemyShip. This parent != null even when the group is detached.
+    private boolean parentToRemove; // Whether the parent ship has left the view after being destroyed, as of this tick.
+    // Whether the group has been removed. Pulses may still hold on to removed groups,
+    // but their bodies are freed, so they must not be touched any more.
+    boolean removed = false;
     Game game;
+    // Position in the game's SeqIndex, maintained by the index.
+    int idxPos = SeqIndex.NONE, idxNode = SeqIndex.NONE, idxNodePos;
+    // Bucket and position in the game's FocusIndex, maintained by the index.
+    int focusLeft, focusPos;
 
     /*
-     * Description: Creates a new TorpedoGroup and adds it to the global list.
+     * Description: Sets up an empty TorpedoGroup taken from the pool and adds it to the game's index.
      * Parameters: s: Engine sequence for this group.
-     *             list: Thread-safe list of TxTorpedoes in the group.
      *             parent: Parent ship of this TorpedoGroup.
+     * Return: this.
      */
-    TorpedoGroup(String s, List<TxTorpedo> list, EnemyShip parent) {
-      torps = Collections.synchronizedList(list);
+    TorpedoGroup init(String s, EnemyShip parent) {
       parentShip = parent;
+      parent.groupRefs++;
       game = parent.game;
       matchCt = 0;
       seq = s;
-      startTime = System.currentTimeMillis();
-
-      List<TorpedoGroup> found = parent.game.tGroups.get(seq);
-      // Add to the list of TorpedoGroups with the same engine sequence.
-      // Create such a list if it does not already exist.
-      if (found == null) {
-        found = Collections.synchronizedList(new ArrayList<>());
-        parent.game.tGroups.put(seq, found);
-      }
-      found.add(this);
+      locked = null;
+      parentToRemove = false;
+      removed = false;
+      game.tGroups.add(this);
+      return this;
+    }
+
+    /*
+     * Description: Empties the group as it goes back into the pool.
+     * Parameters: (none)
+     * Return: (none)
+     */
+    void recycle() {
+      torps.clear();
+      locked = null;
+      parentShip = null;
+      seq = null;
+    }
+
+    /*
+     * Description: Checks whether the group was locked by the given pulse, and not by an
+     * earlier pulse that used the same pooled object.
+     * Parameters: p: Pulse to check.
+     * Return: Whether p locked this group.
+     */
+    boolean lockedBy(Pulse p) {
+      return locked == p && lockSerial == p.serial;
     }
 
     /*
      * Description: Updates the (cosmetic) pulse match count for this TorpedoGroup according
-     * to the pulse sequence provided.
-     * Parameters: pulseStr: Active pulse sequence.
+     * to the active pulse sequence.
+     * Parameters: m: Length of the longest end of the pulse sequence that starts the engine
+     *             sequence, from the index's matcher (SeqIndex.matchLen).
      * Return: Whether the last pulse sequence had an effect on this torpedo group,
      * ie, whether the match count increased.
      */
-    boolean updateMatchCt(StringBuilder pulseStr) {
-      matchCt = 0;
-      // Loop through the current engine sequence
-      for (int i = 0; i < seq.length(); i++) {
-        // Pulse matches only to the end of the pulse sequence.
-        if (pulseStr.toString().endsWith(seq.substring(0, i+1))) {
-          matchCt = i+1;
-        }
-      }
+    boolean updateMatchCt(int m) {
       // Pulse may not target this ship on full match so clear the match count.
       // Last pulse had effect on this ship.
-      if (matchCt == seq.length()) {
-        matchCt = 0;
+      if (m == seq.length()) {
+        setMatchCt(0);
         return true;
       }
-      return matchCt != 0;
+      setMatchCt(m);
+      return m != 0;
+    }
+
+    /*
+     * Description: Sets the match count, keeping the group's place in the focus index.
+     * Parameters: m: New match count.
+     * Return: (none)
+     */
+    void setMatchCt(int m) {
+      if (m == matchCt) return;
+      matchCt = m;
+      if (idxPos != SeqIndex.NONE) game.tGroups.matchChanged(this);
     }
 
     /*
@@ -252,144 +283,178 @@ class TxTorpedo {
      * when it is out of view.
      * Parameters: p: Pulse that made contact with this group
      *             closestTorp: Closest torpedo to the pulse center at the time.
+     *             now: Current game time, in ns.
      * Return: (none)
      */
-    void lock(Pulse p, TxTorpedo closestTorp) {
+    void lock(Pulse p, TxTorpedo closestTorp, long now) {
+      if (removed) return;
       // Lock parent ship
-      if (parentShip != null) parentShip.lock(p);
+      if (parentShip != null) parentShip.lock(p, now);
       locked = p;
-      synchronized (torps) {
-        // Loop through TxTorpedoes in this group and set them all to follow the closest one
-        for (TxTorpedo t : torps) {
-          t.state = TxTorpedo.FOLLOW;
-          t.maxSpeed = TxTorpedo.spd_pulsed;
+      lockSerial = p.serial;
+      // Loop through TxTorpedoes in this group and set them all to follow the closest one
+      for (TxTorpedo t : torps) {
+        t.setState(TxTorpedo.FOLLOW, TxTorpedo.spd_pulsed);
       }
-    }
     // Set the closest torpedo to move away from pulse center at max speed
     if (closestTorp != null) {
-      closestTorp.state = TxTorpedo.PULSED;
+      closestTorp.setState(TxTorpedo.PULSED, TxTorpedo.spd_pulsed);
       // Because each torpedo follows the next lowest index one, we have to remap the first torp to the dragged one.
-      torps.get(0).setTargetPt(closestTorp.getPos());
+      torps.get(0).follow(closestTorp);
     }
   }
 
   /*
-   * Description: Moves the torpedo group forward.
-   * Parameters: bv: BattleView object.
-   *             delta: Time, in ms, since the last update.
-   * Return: Whether this torpedo group should be removed.
+   * Description: Checks whether any torpedo of the group is in view.
+   * Parameters: vp: Viewport of the game.
+   * Return: Whether a torpedo is in view.
    */
-  boolean moveFwd(BattleView bv, long delta) {
+  private boolean anyInView(Viewport vp) {
+    BodyStore b = game.bodies;
+    for (int n=0; n<torps.size(); n++) {
+      int i = b.slot(torps.get(n).id);
+      if (vp.inView(b.x[i], b.y[i])) return true;
+    }
+    return false;
+  }
 
-    boolean parentToRemove = false;
-    // Move enemy ship forward.
-    if (parentShip != null) {
-      parentToRemove = parentShip.moveFwd(bv, delta);
+  /*
+   * Description: Frees the bodies of a removed group and puts them back into their pools:
+   * its torpedoes, and its parent ship once no other group refers to it.
+   * Parameters: (none)
+   * Return: (none)
+   */
+  void free() {
+    removed = true;
+    BodyStore b = game.bodies;
+    for (int i=0; i<torps.size(); i++) {
+      TxTorpedo t = torps.get(i);
+      b.free(t.id);
+      game.torpPool.release(t);
     }
-    // else if (torps.get(0).state == TxTorpedo.RELEASED) released = true;
-    boolean anyInView = false;
-    synchronized (torps) {
-      Iterator<TxTorpedo> it = torps.iterator();
-      // Loop through all torpedoes, move forward.
-      while (it.hasNext()) {
-        TxTorpedo t = it.next();
-        t.moveFwd(bv, delta);
-        // Check if any are in view.
-        if (bv.inView(t.getPos())) anyInView = true;
-      }
+    if (parentShip != null && --parentShip.groupRefs == 0) {
+      b.free(parentShip.id);
+      game.shipPool.release(parentShip);
     }
-    // delete if no torpedoes are in view and
-    // the group has been destroyed
-    return !anyInView && (locked != null || parentToRemove);
   }
 
   /*
-   * Description: Draws the current TorpedoGroup.
-   * Parameters: bv: BattleView object.
-   *             g: Graphics object to draw onto.
+   * Description: Copies the parent ship and the torpedoes of this group into a render snapshot.
+   * Parameters: s: Snapshot to write into.
    * Return: (none)
    */
-  void draw(BattleView bv, Graphics g) {
-    // Draw parent ship.
-    if (parentShip != null) parentShip.draw(bv, g);
-    synchronized (torps) {
-      for (int i=0; i<torps.size(); i++) {
-        Color clr = Color.GRAY;
-        if (matchCt > i) clr = Color.ORANGE;
-        // if (torps.get(i).state == TxTorpedo.PULSED) clr = Color.GREEN;
-        torps.get(i).draw(bv, g, clr, locked!=null);
-      }
+  void snapshot(RenderSnapshot s) {
+    if (parentShip != null) parentShip.snapshot(s);
+    for (int i=0; i<torps.size(); i++)
+      torps.get(i).snapshot(s, matchCt > i, locked != null);
+  }
+
+  /*
+   * Description: Removes every TorpedoGroup, putting the groups, their torpedoes and their
+   * ships back into the pools, eg when the game restarts.
+   * Parameters: game: Game whose groups to remove.
+   * Return: (none)
+   */
+  static void releaseAll(Game game) {
+    SeqIndex tGroups = game.tGroups;
+    for (int i=0; i<tGroups.size(); i++) {
+      TorpedoGroup tg = tGroups.get(i);
+      tg.free();
+      game.groups.release(tg);
     }
+    tGroups.clear();
+  }
+
+  /*
+   * Description: Copies every TorpedoGroup into a render snapshot.
+   * Parameters: tGroups: Index of all TorpedoGroups.
+   *             s: Snapshot to write into.
+   * Return: (none)
+   */
+  static void snapshot(SeqIndex tGroups, RenderSnapshot s) {
+    for (int i=0; i<tGroups.size(); i++)
+      tGroups.get(i).snapshot(s);
   }
 
   /*
    * Description: Returns the focused TorpedoGroup.
    * The focused group is the one that is closest to a full match,
    * and in case of a tie, the closest TorpedoGroup.
-   * Parameters: tGroups: HashMap of all TorpedoGroups
+   * Parameters: tGroups: Index of all TorpedoGroups
    *             p: Center point to check distances from
    * Return: Closest TorpedoGroup, or null if none exist.
    */
-  static TorpedoGroup getFocused(ConcurrentHashMap<String, List<TorpedoGroup>> tGroups, Pt2 p) {
-    int bestMatchDiff = 9999;
-    TorpedoGroup closestTG = null;
-    double minDist = 9999;
-    for (List<TorpedoGroup> tgs : tGroups.values()) {
-      // Loop through all torpedo groups
-      for (TorpedoGroup tg : tgs) {
-        int matchDiff = tg.seq.length() - tg.matchCt;
-        double distTo = tg.getFirstPos().diff(p).magn();
-        // either found a closer match or the same match quality but this tg is closer to the target point
-        if (matchDiff < bestMatchDiff || matchDiff == bestMatchDiff && distTo < minDist) {
-          bestMatchDiff = matchDiff;
-          closestTG = tg;
-          minDist = distTo;
-        }
-      }
-    }
-
-    return closestTG;
+  static TorpedoGroup getFocused(SeqIndex tGroups, Pt2 p) {
+    return tGroups.focus().focused(p);
   }
 
   /*
    * Description: Returns the position of the parent ship or the first torpedo.
    * Parameters: (none)
-   * Return: Position of the first entity.
+   * Return: Position of the first entity, or null if there is none or the group has been removed.
    */
   Pt2 getFirstPos() {
-    if (parentShip != null) return parentShip.getPos();
-    else if (torps.size() > 0) return torps.get(0).getPos();
+    return getFirstPos(new Pt2(0, 0));
+  }
+
+  /*
+   * Description: Gets the position of the parent ship or the first torpedo without allocating.
+   * Parameters: out: Pt2 to write the position into.
+   * Return: out, or null if there is no entity or the group has been removed.
+   */
+  Pt2 getFirstPos(Pt2 out) {
+    if (removed) return null;
+    else if (parentShip != null) return parentShip.getPos(out);
+    else if (torps.size() > 0) return torps.get(0).getPos(out);
     else return null;
   }
 
-  static long lastTime = System.currentTimeMillis();
   /*
-   * Description: Moves the current TorpedoGroup forward and removes groups if necessary.
-   * Parameters: tGroups: List of all TorpedoGroups.
-   *             bv: BattleView information.
+   * Description: Returns the distance from the parent ship or the first torpedo to a point.
+   * The group must have one of them and must not have been removed.
+   * Parameters: p: Point to find the distance to.
+   * Return: Distance, in BSU.
+   */
+  double firstDist(Pt2 p) {
+    BodyStore b = game.bodies;
+    int i = b.slot(parentShip != null ? parentShip.id : torps.get(0).id);
+    return G.dist(b.x[i], b.y[i], p.x, p.y);
+  }
+
+  /*
+   * Description: Flight system. Moves every enemy ship along its flight path and takes the
+   * flight path actions (launches and refills), in group order. A ship with several groups
+   * (eg after a launch) still moves once per tick. Groups added by launches and refills are
+   * at the end, and move in this tick too. The BodyStore moves and steers the ships.
+   * Parameters: game: Game whose groups to move.
+   *             now: Current game time, in ns.
+   *             delta: Simulation time step, in ns.
    * Return: (none)
    */
-  static void moveFwd(ConcurrentHashMap<String, List<TorpedoGroup>> tGroups, BattleView bv) {
-    long currT = System.currentTimeMillis();
-    long delta = currT - lastTime;
-    lastTime = currT;
-    synchronized (tGroups) {
-      // Loop through all TorpedoGroups.
-      Iterator<List<TorpedoGroup>> it = tGroups.values().iterator();
-      while (it.hasNext()) {
-        List<TorpedoGroup> tgs = it.next();
-        // Move all forward and remove if necessary.
-        for (int i=0; i<tgs.size(); i++) {
-          if (tgs.get(i).moveFwd(bv, delta)) {
-            tgs.remove(i);
-            i--;
-          }
-        }
-        // Remove the entire list if none remain.
-        if (tgs.size() == 0) {
-          it.remove();
-        }
-      }
+  static void flyAll(Game game, long now, long delta) {
+    SeqIndex tGroups = game.tGroups;
+    Viewport vp = game.view;
+    for (int i=0; i<tGroups.size(); i++) {
+      TorpedoGroup tg = tGroups.get(i);
+      tg.parentToRemove = tg.parentShip != null && tg.parentShip.moveFwd(vp, now, delta);
+    }
+  }
+
+  /*
+   * Description: Expiry system. Removes the groups that have been destroyed and have left
+   * the view, then compacts the BodyStore.
+   * Parameters: game: Game whose groups to remove.
+   * Return: (none)
+   */
+  static void expireAll(Game game) {
+    SeqIndex tGroups = game.tGroups;
+    Viewport vp = game.view;
+    for (int i=0; i<tGroups.size(); i++) {
+      TorpedoGroup tg = tGroups.get(i);
+      if ((tg.locked != null || tg.parentToRemove) && !tg.anyInView(vp))
+        game.groups.retire(tg);
     }
+    game.groups.flush(tGroups);
+    game.bodies.compact();
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+// Name: Rufin Hsu
+// Date: Jan 19, 2025
+// Description: World class and TickSystem interface.
+// The simulation tick as an ordered list of systems. Each system is one pass over the
+// component stores it needs: the BodyStore (positions, velocities and states of ships
+// and torpedoes), the SeqIndex (torpedo groups by sequence and focus), the PulseRing and
+// the SpatialGrid. The stores themselves stay in the Game. Running the systems through
+// the World lets each one be timed on its own (-profile 1 in Headless).
+
+import java.util.*;
+
+interface TickSystem {
+  /*
+   * Description: Runs the system for one tick.
+   * Parameters: now: Game time, in ns, of the tick.
+   *             delta: Simulation time step, in ns.
+   * Return: Whether the game is over, which ends the tick.
+   */
+  boolean run(long now, long delta);
+}
+
+class World {
+  private String[] names = new String[16];
+  private TickSystem[] systems = new TickSystem[16];
+  private int systemCt = 0;
+  boolean profile = false; // Whether to time each system.
+  private long[] ns = new long[16]; // Time spent in each system, in ns, while profiling.
+  private long ticks = 0; // Ticks run while profiling.
+
+  /*
+   * Description: Adds a system after the ones already added.
+   * Parameters: name: Name of the system, for profiling.
+   *             s: System to run every tick.
+   * Return: (none)
+   */
+  void add(String name, TickSystem s) {
+    if (systemCt == systems.length) {
+      names = Arrays.copyOf(names, systemCt * 2);
+      systems = Arrays.copyOf(systems, systemCt * 2);
+      ns = Arrays.copyOf(ns, systemCt * 2);
+    }
+    names[systemCt] = name;
+    systems[systemCt++] = s;
+  }
+
+  /*
+   * Description: Runs every system in order for one tick.
+   * Parameters: now: Game time, in ns, of the tick.
+   *             delta: Simulation time step, in ns.
+   * Return: Whether the game is over.
+   */
+  boolean tick(long now, long delta) {
+    if (profile) return profiledTick(now, delta);
+    for (int i = 0; i < systemCt; i++)
+      if (systems[i].run(now, delta)) return true;
+    return false;
+  }
+
+  /*
+   * Description: Runs every system in order for one tick, timing each one.
+   * Parameters: now: Game time, in ns, of the tick.
+   *             delta: Simulation time step, in ns.
+   * Return: Whether the game is over.
+   */
+  private boolean profiledTick(long now, long delta) {
+    ticks++;
+    for (int i = 0; i < systemCt; i++) {
+      long t0 = System.nanoTime();
+      boolean over = systems[i].run(now, delta);
+      ns[i] += System.nanoTime() - t0;
+      if (over) return true;
+    }
+    return false;
+  }
+
+  /*
+   * Description: Returns the time spent in each system while profiling.
+   * Parameters: (none)
+   * Return: Average time per tick of each system, in microseconds.
+   */
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < systemCt; i++) {
+      if (i > 0) sb.append(", ");
+      sb.append(String.format("%s %.2f", names[i], ticks == 0 ? 0 : ns[i] / 1e3 / ticks));
+    }
+    return sb.append(" us/tick").toString();
+  }
+}
@@ -1,11 +1,15 @@
 // Name: Rufin Hsu
 // Date: Jan 19, 2025
 // Description: General utility class G and Pt2.
+// Pt2 methods that return a new Pt2 allocate; the in-place ones (set, add, sub, interp
+// with an output) and the primitive helpers in G do not, and are the ones to use in the
+// simulation tick.
 
 import java.awt.*;
 import java.awt.geom.*;
 import java.awt.Font;
 import java.io.*;
+import java.util.SplittableRandom;
 
 class Pt2 {
   double x, y;
@@ -36,7 +40,19 @@ class Pt2 {
    * Return: Pt2
    */
   static Pt2 interp(Pt2 from, Pt2 to, double frac) {
-    return new Pt2(from.x+(to.x-from.x)*frac, from.y+(to.y-from.y)*frac);
+    return interp(from, to, frac, new Pt2(0, 0));
+  }
+
+  /*
+   * Description: Interpolates between one Pt2 to another according to the fraction,
+   * without allocating.
+   * Parameters: from, to: Pt2s to interpolate between.
+   *             fraction: Fraction of the way between from and to.
+   *             out: Pt2 to write the result into. May be from or to.
+   * Return: out.
+   */
+  static Pt2 interp(Pt2 from, Pt2 to, double frac, Pt2 out) {
+    return out.set(from.x+(to.x-from.x)*frac, from.y+(to.y-from.y)*frac);
   }
 
   /*
@@ -58,6 +74,15 @@ class Pt2 {
     return Math.sqrt(x*x+y*y);
   }
 
+  /*
+   * Description: Returns the distance to another point.
+   * Parameters: p: Pt2 to find the distance to.
+   * Return: Distance.
+   */
+  double dist(Pt2 p) {
+    return G.dist(x, y, p.x, p.y);
+  }
+
   /*
    * Description: Returns the normalised vector of this.
    * Parameters: (none)
@@ -128,6 +153,17 @@ class Pt2 {
     y = yy;
   }
 
+  /*
+   * Description: Sets self to the given coordinates.
+   * Parameters: xx, yy: New values for x and y.
+   * Return: this.
+   */
+  Pt2 set(double xx, double yy) {
+    x = xx;
+    y = yy;
+    return this;
+  }
+
   /*
    * Description: Returns the angle of this Pt2.
    * Parameters: (none)
@@ -206,55 +242,9 @@ class Pt2_i {
 
 class G {
 
-  // Fonts for
-  static Font btnFont, titleFont, comboFont, pulseFont, circFont, typoFont, LCDFont;
   static final boolean DEBUG = false;
   // static double[] lightVec = new double[3]; // Global light direction. (In normal right-hand 3D coordinates.)
 
-  /*
-   * Description: Inits the fonts.
-   * Parameters: (none)
-   * Return: (none)
-   */
-  static void init() {
-    try {
-      titleFont = Font.createFont( Font.TRUETYPE_FONT, new FileInputStream("Blox2.ttf") );
-    } catch (FontFormatException ffe) {} catch (IOException ioe) {
-      titleFont = new Font("Arial", Font.BOLD, 100);
-    }
-    try {
-      btnFont = Font.createFont( Font.TRUETYPE_FONT, new FileInputStream("Crackman.otf") );
-    } catch (FontFormatException ffe) {} catch (IOException ioe) {
-      btnFont = new Font("Arial", Font.BOLD, 20);
-    }
-
-    try {
-      LCDFont = Font.createFont( Font.TRUETYPE_FONT, new FileInputStream("LCD14.otf") );
-    } catch (FontFormatException ffe) {} catch (IOException ioe) {
-      LCDFont = new Font("Arial", Font.BOLD, 20);
-    }
-    try {
-      comboFont = Font.createFont( Font.TRUETYPE_FONT, new FileInputStream("Betsy Flanagan.otf") );
-    } catch (FontFormatException ffe) {} catch (IOException ioe) {
-      comboFont = new Font("Arial", Font.PLAIN, 15);
-    }
-    try {
-      pulseFont = Font.createFont( Font.TRUETYPE_FONT, new FileInputStream("High Fiber.ttf") );
-    } catch (FontFormatException ffe) {} catch (IOException ioe) {
-      pulseFont = new Font("Arial", Font.PLAIN, 15);
-    }
-    try {
-      circFont = Font.createFont( Font.TRUETYPE_FONT, new FileInputStream("circulat.ttf") );
-    } catch (FontFormatException ffe) {} catch (IOException ioe) {
-      circFont = new Font("Arial", Font.PLAIN, 15);
-    }
-    try {
-      typoFont = Font.createFont( Font.TRUETYPE_FONT, new FileInputStream("VTBULLET.ttf") );
-    } catch (FontFormatException ffe) {} catch (IOException ioe) {
-      typoFont = new Font("Arial", Font.PLAIN, 15);
-    }
-  }
-
   /*
    * Description: Returns the normalised angle.
    * Parameters: ang: Angle in radians.
@@ -313,7 +303,26 @@ class G {
    * Return: Magnitude.
    */
   static double magnitude(Pt2 v) {
-    return Math.sqrt(v.x*v.x + v.y*v.y);
+    return magnitude(v.x, v.y);
+  }
+
+  /*
+   * Description: Returns the magnitude of a vector.
+   * Parameters: x, y: Vector components.
+   * Return: Magnitude.
+   */
+  static double magnitude(double x, double y) {
+    return Math.sqrt(x*x + y*y);
+  }
+
+  /*
+   * Description: Returns the distance between two points.
+   * Parameters: x1, y1: First point.
+   *             x2, y2: Second point.
+   * Return: Distance.
+   */
+  static double dist(double x1, double y1, double x2, double y2) {
+    return magnitude(x1-x2, y1-y2);
   }
 
   /*
@@ -337,20 +346,21 @@ class G {
    * Description: Makes the Path2D for the explosion animation.
    * Parameters: sz: Size of the explosion.
    *             phase: Reserved for future more elaborate animations.
+   *             rnd: Cosmetic random number stream.
    * Return: Path2D for the explosion animation.
    */
-  static Path2D mkExplodePath(double sz, long phase)
+  static Path2D mkExplodePath(double sz, long phase, SplittableRandom rnd)
   {
     Path2D l = new Path2D.Double();
-    double[][] segs = new double[3+(int)(Math.random()*7)][2];
-    double ox1 = sz*Math.random()/4;
-    double oy1 = sz*Math.random()/4;
-    double ox2 = sz*Math.random()/4;
-    double oy2 = sz*Math.random()/4;
+    double[][] segs = new double[3+rnd.nextInt(7)][2];
+    double ox1 = sz*rnd.nextDouble()/4;
+    double oy1 = sz*rnd.nextDouble()/4;
+    double ox2 = sz*rnd.nextDouble()/4;
+    double oy2 = sz*rnd.nextDouble()/4;
     for (int i=0; i<segs.length; i++) {
-      double a=(Math.random()/3.0 + i)*2.0*Math.PI/segs.length;
-      double l1 = sz * (0.3 + Math.random());
-      double l2 = sz * (0.3 + Math.random());
+      double a=(rnd.nextDouble()/3.0 + i)*2.0*Math.PI/segs.length;
+      double l1 = sz * (0.3 + rnd.nextDouble());
+      double l2 = sz * (0.3 + rnd.nextDouble());
       l.moveTo(l1*Math.cos(a)+ox1, l1*Math.sin(a)+oy1);
       l.lineTo(l2*Math.cos(a)+ox2, l2*Math.sin(a)+oy2);
     }
@@ -370,4 +380,30 @@ class G {
       (Math.min(255, (int)(scale*((rgb>>16)&0xff)+0.5))<<16);
     return outc;
   }
-}
\ No newline at end of file
+}
+
+class Fonts {
+  // Fonts shared by every game. Loaded when the class is first used, so headless games
+  // never load them. Font objects are immutable; sizes are derived with deriveFont().
+  static final Font btnFont = load("Crackman.otf", new Font("Arial", Font.BOLD, 20));
+  static final Font titleFont = load("Blox2.ttf", new Font("Arial", Font.BOLD, 100));
+  static final Font comboFont = load("Betsy Flanagan.otf", new Font("Arial", Font.PLAIN, 15));
+  static final Font pulseFont = load("High Fiber.ttf", new Font("Arial", Font.PLAIN, 15));
+  static final Font circFont = load("circulat.ttf", new Font("Arial", Font.PLAIN, 15));
+  static final Font typoFont = load("VTBULLET.ttf", new Font("Arial", Font.PLAIN, 15));
+  static final Font LCDFont = load("LCD14.otf", new Font("Arial", Font.BOLD, 20));
+
+  /*
+   * Description: Loads a font file.
+   * Parameters: fileName: Name of the TrueType or OpenType font file.
+   *             fallback: Font to use if the file cannot be loaded.
+   * Return: Loaded font, or the fallback.
+   */
+  private static Font load(String fileName, Font fallback) {
+    try (FileInputStream in = new FileInputStream(fileName)) {
+      return Font.createFont(Font.TRUETYPE_FONT, in);
+    } catch (FontFormatException | IOException e) {
+      return fallback;
+    }
+  }
+}